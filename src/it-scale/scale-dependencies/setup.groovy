@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.jmod.ScaleProjectGenerator
+
+// the number of dependencies, can be changed via system properties of the build
+int modular = Integer.getInteger( 'scale.modularDependencies', 500 )
+int automatic = Integer.getInteger( 'scale.automaticDependencies', 500 )
+
+// the dependencies are installed into the local repository, so no remote repository is needed
+def modules = ScaleProjectGenerator.installDependencies( localRepositoryPath, modular, automatic )
+ScaleProjectGenerator.createClasses( new File( basedir, 'target/classes' ), 'scale.app', modules, 10 )
+
+def pom = new File( basedir, 'pom.xml' )
+pom.text = pom.text.replace( '<!-- @dependencies@ -->', ScaleProjectGenerator.dependencies( modules ) )
+context.dependencies = modules.size()
+return true
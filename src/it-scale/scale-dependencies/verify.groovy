@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+
+def jmod = new File( basedir, 'target/jmods/maven-jmod-plugin-scale-dependencies.jmod' )
+assert jmod.isFile() : 'jmod file is missing.'
+
+def timings = new JsonSlurper().parse( new File( basedir, 'target/jmod-timings/create-default-create.json' ) )
+def resolvePaths = timings.phases.find { it.name == 'resolve-paths' }
+// all dependencies are required, each of them is in its own directory of the local repository, and the classes
+assert resolvePaths.attributes['jmod.modulepath.size'] == context.dependencies + 1
+assert resolvePaths.attributes['jmod.classpath.size'] == 0
+
+def buildLog = new File( basedir, 'build.log' ).text
+// the automatic modules are named via their manifest
+assert !buildLog.contains( 'Required filename-based automodules detected' )
+
+// the ceilings, the memory of the build and of jmod is limited via invoker.mavenOpts and jmodJvmArgs
+long maxResolveMillis = Long.getLong( 'scale.maxResolveMillis', 60000 )
+long maxMillis = Long.getLong( 'scale.maxMillis', 120000 )
+assert resolvePaths.durationMillis <= maxResolveMillis :
+        "The resolution took ${resolvePaths.durationMillis} ms, the ceiling is ${maxResolveMillis} ms"
+assert timings.totalMillis <= maxMillis : "jmod:create took ${timings.totalMillis} ms, the ceiling is ${maxMillis} ms"
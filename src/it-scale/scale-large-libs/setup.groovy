@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.jmod.ScaleProjectGenerator
+
+// the size of the native libraries, can be changed via system properties of the build; their sum and the largest one
+// exceed 4 GB by default, which needs the zip64 format for the sizes and the offsets
+long kernels = Long.getLong( 'scale.kernelsLibraryMegabytes', 4352 ) * 1024 * 1024
+long model = Long.getLong( 'scale.modelLibraryMegabytes', 256 ) * 1024 * 1024
+
+ScaleProjectGenerator.createClasses( new File( basedir, 'target/classes' ), 'scale.libs', [], 100 )
+ScaleProjectGenerator.createNativeLibrary( new File( basedir, 'src/main/libs/libkernels.so' ), kernels )
+ScaleProjectGenerator.createNativeLibrary( new File( basedir, 'src/main/libs/models/model.bin' ), model )
+context.libs = kernels + model
+context.kernels = kernels
+return true
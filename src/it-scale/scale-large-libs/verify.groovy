@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+import java.util.zip.ZipFile
+
+def buildLog = new File( basedir, 'build.log' ).text
+
+def jmod = new File( basedir, 'target/jmods/maven-jmod-plugin-scale-large-libs.jmod' )
+assert jmod.isFile() : 'jmod file is missing.'
+
+// the size report reads the zip64 records of the jmod tool
+def report = new JsonSlurper().parse( new File( basedir, 'target/jmod-size-report.json' ) )
+def sections = report.sections.collectEntries { [ it.name, it ] }
+assert sections.lib.entries == 2
+assert sections.lib.size == context.libs
+
+// the update and the variant are written by the plugin, with the zip64 records where they are needed
+assert buildLog.contains( 'Updated maven-jmod-plugin-scale-large-libs.jmod incrementally: ' )
+def variant = new File( basedir, 'target/jmods/maven-jmod-plugin-scale-large-libs-linux-x64.jmod' )
+new ZipFile( variant ).withCloseable { zip ->
+    assert zip.getEntry( 'lib/libkernels.so' ).size == context.kernels
+    assert zip.getEntry( 'classes/module-info.class' ) != null
+}
+[ jmod, variant ].each {
+    assert new File( it.parentFile, it.name + '.sha256' ).text.length() == 64
+}
+
+// the ceilings, the memory of the build and of jmod is limited via invoker.mavenOpts and jmodJvmArgs
+long maxMillis = Long.getLong( 'scale.maxMillis', 900000 )
+long maxRssBytes = Long.getLong( 'scale.maxRssMegabytes', 1024 ) * 1024 * 1024
+
+def created = new JsonSlurper().parse( new File( basedir, 'target/jmod-timings-create/create-default-create.json' ) )
+assert created.totalMillis <= maxMillis : "jmod:create took ${created.totalMillis} ms, the ceiling is ${maxMillis} ms"
+long peakRss = created.phases.find { it.name == 'jmod' }.attributes['process.peakRssBytes']
+assert peakRss > 0 && peakRss <= maxRssBytes : "jmod used ${peakRss} bytes, the ceiling is ${maxRssBytes} bytes"
+
+def updated = new JsonSlurper().parse( new File( basedir, 'target/jmod-timings/create-default-create.json' ) )
+assert updated.phases.find { it.name == 'jmod-update' } != null
+assert updated.totalMillis <= maxMillis : "jmod:create took ${updated.totalMillis} ms, the ceiling is ${maxMillis} ms"
+
+return true
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.jmod.ScaleProjectGenerator
+
+// the size of the project, can be changed via system properties of the build; more than 65535 entries need the zip64
+// format
+int classes = Integer.getInteger( 'scale.classes', 100000 )
+long nativeLibrary = Long.getLong( 'scale.nativeLibraryMegabytes', 128 ) * 1024 * 1024
+int configDepth = Integer.getInteger( 'scale.configDepth', 50 )
+int configFiles = Integer.getInteger( 'scale.configFilesPerDirectory', 20 )
+
+ScaleProjectGenerator.createClasses( new File( basedir, 'target/classes' ), 'scale.large', [], classes )
+ScaleProjectGenerator.createNativeLibrary( new File( basedir, 'src/main/libs/libscale.so' ), nativeLibrary )
+context.configFiles =
+        ScaleProjectGenerator.createConfigTree( new File( basedir, 'src/main/configs' ), configDepth, configFiles )
+context.classes = classes
+context.nativeLibrary = nativeLibrary
+return true
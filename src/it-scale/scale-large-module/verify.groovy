@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+
+def jmod = new File( basedir, 'target/jmods/maven-jmod-plugin-scale-large-module.jmod' )
+assert jmod.isFile() : 'jmod file is missing.'
+
+def report = new JsonSlurper().parse( new File( basedir, 'target/jmod-size-report.json' ) )
+def sections = report.sections.collectEntries { [ it.name, it ] }
+// the classes and module-info.class
+assert sections.classes.entries == context.classes + 1
+assert sections.lib.entries == 1
+assert sections.lib.size == context.nativeLibrary
+assert sections.conf.entries == context.configFiles
+
+// the ceilings, the memory of the build and of jmod is limited via invoker.mavenOpts and jmodJvmArgs
+long maxMillis = Long.getLong( 'scale.maxMillis', 300000 )
+long maxRssBytes = Long.getLong( 'scale.maxRssMegabytes', 1024 ) * 1024 * 1024
+
+def timings = new JsonSlurper().parse( new File( basedir, 'target/jmod-timings/create-default-create.json' ) )
+assert timings.totalMillis <= maxMillis : "jmod:create took ${timings.totalMillis} ms, the ceiling is ${maxMillis} ms"
+def process = timings.phases.find { it.name == 'jmod' }.attributes
+if ( process['process.peakRssBytes'] != null )
+{
+    assert process['process.peakRssBytes'] <= maxRssBytes :
+            "jmod used ${process['process.peakRssBytes']} bytes, the ceiling is ${maxRssBytes} bytes"
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.security.MessageDigest
+
+def buildLog = new File( basedir, 'build.log' ).text
+
+assert buildLog.contains( 'Updated maven-jmod-plugin-checksums.jmod incrementally' )
+
+def jmods = new File( basedir, 'target/jmods' )
+// the file of the jmod tool is read to checksum it, the update is checksummed while it is written
+assert buildLog.count( "Wrote ${new File( jmods, 'maven-jmod-plugin-checksums.jmod.sha256' )}" ) == 2
+assert buildLog.count( "Wrote ${new File( jmods, 'maven-jmod-plugin-checksums-linux-x64.jmod.sha256' )}" ) == 2
+
+[ 'maven-jmod-plugin-checksums.jmod', 'maven-jmod-plugin-checksums-linux-x64.jmod' ].each { name ->
+    def jmod = new File( jmods, name )
+    assert jmod.isFile()
+    [ 'sha1': 'SHA-1', 'sha256': 'SHA-256', 'sha512': 'SHA-512' ].each { extension, algorithm ->
+        def checksum = new File( jmods, name + '.' + extension )
+        assert checksum.isFile()
+        assert checksum.text == MessageDigest.getInstance( algorithm ).digest( jmod.bytes ).encodeHex().toString()
+    }
+}
+
+return true
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import groovy.json.JsonSlurper
+import java.security.MessageDigest
+import java.util.zip.ZipFile
+
+def sha256( bytes ) {
+    MessageDigest.getInstance( 'SHA-256' ).digest( bytes ).encodeHex().toString()
+}
+
+def manifest = new File( basedir, 'target/jmod-content-manifest.json' )
+assert manifest.isFile() : 'content manifest is missing.'
+
+def jmod = new File( basedir, 'target/jmods/maven-jmod-plugin-content-manifest.jmod' )
+def json = new JsonSlurper().parse( manifest )
+assert json.jmod.endsWith( 'maven-jmod-plugin-content-manifest.jmod' )
+
+def entries = json.entries.collectEntries { [ it.name, it ] }
+assert entries.keySet() == [ 'classes/module-info.class', 'classes/myproject/HelloWorld.class',
+                             'classes/myproject/greeting.properties', 'conf/app.properties' ] as Set
+
+def classes = new File( basedir, 'target/classes' )
+def greeting = entries[ 'classes/myproject/greeting.properties' ]
+assert greeting.section == 'classes'
+assert new File( greeting.source ) == classes
+assert greeting.size == new File( classes, 'myproject/greeting.properties' ).length()
+assert greeting.sha256 == sha256( new File( classes, 'myproject/greeting.properties' ).bytes )
+
+def config = entries[ 'conf/app.properties' ]
+assert config.section == 'conf'
+assert new File( config.source ) == new File( basedir, 'src/main/configs' )
+assert config.sha256 == sha256( new File( basedir, 'src/main/configs/app.properties' ).bytes )
+
+// the module descriptor is extended by the jmod tool, its digest is the one of the entry
+new ZipFile( jmod ).withCloseable { zip ->
+    json.entries.each { entry ->
+        def zipEntry = zip.getEntry( entry.name )
+        assert entry.size == zipEntry.size
+        assert entry.sha256 == sha256( zip.getInputStream( zipEntry ).bytes )
+    }
+}
+
+// the classes are staged without their debug attributes, the manifest reports the classes directory nevertheless
+def helloWorld = entries[ 'classes/myproject/HelloWorld.class' ]
+assert new File( helloWorld.source ) == classes
+assert helloWorld.size < new File( classes, 'myproject/HelloWorld.class' ).length()
+
+// the digests of the update have been computed while it has been written, they match the ones of the jmod tool
+def toolJson = new JsonSlurper().parse( new File( basedir, 'target/jmod-content-manifest-tool.json' ) )
+assert toolJson.entries.collect { [ it.name, it.source, it.size, it.sha256 ] } as Set ==
+    json.entries.collect { [ it.name, it.source, it.size, it.sha256 ] } as Set
+
+def buildLog = new File( basedir, 'build.log' ).text
+assert buildLog.contains( 'The content manifest of 4 entries has been written to ' )
+assert buildLog.contains( 'Updated maven-jmod-plugin-content-manifest.jmod incrementally' )
+
+def timings = new JsonSlurper().parse( new File( basedir, 'target/jmod-timings/create-default-create.json' ) )
+def attributes = timings.phases.find { it.name == 'content-manifest' }.attributes
+assert attributes[ 'jmod.contentManifest.entries' ] == 4
+assert attributes[ 'jmod.contentManifest.readFromJmod' ] == 0
+
+return true
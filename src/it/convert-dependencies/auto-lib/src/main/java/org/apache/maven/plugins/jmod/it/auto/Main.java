@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod.it.auto;
+
+import java.util.ServiceLoader;
+import java.util.logging.Logger;
+
+import org.apache.maven.plugins.jmod.it.named.Greeting;
+
+public class Main implements Runnable {
+    private static final Logger LOG = Logger.getLogger(Main.class.getName());
+
+    public static void main(String[] args) {
+        LOG.fine("starting");
+        for (Runnable runnable : ServiceLoader.load(Runnable.class)) {
+            runnable.run();
+        }
+    }
+
+    @Override
+    public void run() {
+        System.out.println(Greeting.greet("from the automatic module"));
+    }
+}
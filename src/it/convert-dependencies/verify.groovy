@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+def buildLog = new File( basedir, 'build.log' ).text
+assert buildLog.contains( '[INFO] Converted 2 dependencies to jmod files, 0 from the cache' )
+assert buildLog.contains( '[INFO] Converted 0 dependencies to jmod files, 2 from the cache' )
+assert buildLog.contains( 'Skipping org.apache.maven.plugins:plain-lib:jar:99.0:compile, it is not a module.' )
+
+def jmods = new File( basedir, 'app/target/dependency-jmods' )
+assert jmods.list() as Set == [ 'org.apache.maven.plugins.jmod.it.named.jmod',
+                                'org.apache.maven.plugins.jmod.it.auto.jmod' ] as Set
+
+// link the converted modules with the JDK and run the automatic module
+def javaHome = new File( System.getProperty( 'java.home' ) )
+if ( !new File( javaHome, 'jmods' ).isDirectory() )
+{
+    javaHome = javaHome.parentFile
+}
+def exe = System.getProperty( 'os.name' ).toLowerCase( Locale.ROOT ).contains( 'windows' ) ? '.exe' : ''
+def image = new File( basedir, 'app/target/image' )
+def jlink = [ new File( javaHome, "bin/jlink${exe}" ).path,
+              '--module-path', new File( javaHome, 'jmods' ).path + File.pathSeparator + jmods.path,
+              '--add-modules', 'org.apache.maven.plugins.jmod.it.auto',
+              '--output', image.path ].execute()
+jlink.waitForProcessOutput( System.out, System.err )
+assert jlink.exitValue() == 0
+
+def describe = [ new File( image, "bin/java${exe}" ).path,
+                 '--describe-module', 'org.apache.maven.plugins.jmod.it.auto' ].execute().text
+assert describe.contains( 'requires java.logging' )
+assert describe.contains( 'requires org.apache.maven.plugins.jmod.it.named' )
+assert describe.contains( 'provides java.lang.Runnable with org.apache.maven.plugins.jmod.it.auto.Main' )
+assert describe.contains( 'uses java.lang.Runnable' )
+
+def run = [ new File( image, "bin/java${exe}" ).path,
+            '-m', 'org.apache.maven.plugins.jmod.it.auto/org.apache.maven.plugins.jmod.it.auto.Main' ].execute().text
+assert run.trim() == 'Hello from the automatic module'
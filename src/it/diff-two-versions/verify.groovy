@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+
+def buildLog = new File( basedir, 'build.log' ).text
+
+assert buildLog.contains( '[INFO]       + requires java.logging' )
+assert buildLog.contains( '[INFO]   + classes/myproject/Greeter.class' )
+assert buildLog.contains( '[INFO]   - conf/removed.test' )
+assert buildLog.contains( '[INFO]   ~ classes/myproject/HelloWorld.class' )
+assert buildLog.contains( '[INFO]       + method public static greeting()Ljava/lang/String;' )
+assert buildLog.contains( '[INFO]   ~ conf/config.test' )
+assert buildLog.contains( '[INFO]       - greeting=Hello' )
+assert buildLog.contains( '[INFO]       + greeting=Hi' )
+
+def json = new JsonSlurper().parse( new File( basedir, 'target/diff.json' ) )
+assert json.moduleDescriptor.contains( '+ requires java.logging' )
+assert json.added*.name == [ 'classes/myproject/Greeter.class' ]
+assert json.removed*.name == [ 'conf/removed.test' ]
+assert json.changed*.name as Set == [ 'classes/module-info.class', 'classes/myproject/HelloWorld.class', 'conf/config.test' ] as Set
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+def target = new File( basedir, 'target' )
+assert ( target.exists() && target.isDirectory() ) : 'target file is missing or not a directory.'
+
+def extracted = new File( target, 'jmod' )
+assert ( extracted.exists() && extracted.isDirectory() ) : 'extract directory is missing or not a directory.'
+
+def resourceNames = [
+    'bin/first.sh',
+    'classes/module-info.class',
+    'classes/myproject/HelloWorld.class',
+] as Set
+
+def contents = [] as Set
+extracted.eachFileRecurse( groovy.io.FileType.FILES ) {
+    contents.add( extracted.toPath().relativize( it.toPath() ).toString().replace( '\\', '/' ) )
+}
+
+assert resourceNames == contents
+
+assert new File( extracted, 'classes/module-info.class' ).length() > 0
+
+def command = new File( extracted, 'bin/first.sh' )
+assert command.text == new File( basedir, 'src/main/cmds/first.sh' ).text
+if ( !System.getProperty( 'os.name' ).toLowerCase().contains( 'windows' ) ) {
+    assert command.canExecute() : 'bin/first.sh is not executable.'
+}
+
+def buildLog = new File( basedir, 'build.log' ).text
+assert buildLog.contains( 'Extracting 3 entries of ' )
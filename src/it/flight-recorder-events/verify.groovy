@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import jdk.jfr.consumer.RecordingFile
+
+def recording = new File( basedir, 'recording.jfr' )
+assert recording.isFile() : 'the recording is missing.'
+
+def events = RecordingFile.readAllEvents( recording.toPath() )
+                          .findAll { it.eventType.name.startsWith( 'org.apache.maven.plugins.jmod.' ) }
+                          .groupBy { it.eventType.name - 'org.apache.maven.plugins.jmod.' }
+
+assert events.Subprocess.size() == 1
+assert events.Subprocess[0].getInt( 'exitCode' ) == 0
+assert events.Subprocess[0].getString( 'command' ).contains( ' create ' )
+assert !events.Subprocess[0].duration.isNegative()
+if ( new File( '/proc/self/stat' ).isFile() )
+{
+    assert events.Subprocess[0].getLong( 'peakRss' ) > 0
+}
+
+assert events.ResolvePaths.size() == 1
+assert events.ResolvePaths[0].getString( 'project' ).contains( 'maven-jmod-plugin-flight-recorder-events' )
+
+assert events.ModuleDescriptor*.getString( 'module' ).contains( 'org.apache.maven.plugins.jmod.it.first' )
+
+def written = events.EntryWritten.collectEntries { [ it.getString( 'entry' ), it ] }
+assert written.keySet() == [ 'classes/module-info.class', 'classes/myproject/HelloWorld.class', 'lib/first.so' ] as Set
+assert written['lib/first.so'].getString( 'section' ) == 'lib'
+assert written['lib/first.so'].getLong( 'size' ) == new File( basedir, 'src/main/libs/first.so' ).length()
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.zip.ZipFile
+
+def buildLog = new File( basedir, 'build.log' ).text
+
+// the module descriptor, the class and the configuration are copied, the changed resource is compressed
+assert buildLog.contains( 'Updated maven-jmod-plugin-incremental-update.jmod incrementally: 3 entries copied, 1 compressed, 0 removed.' )
+assert buildLog.contains( '[INFO] exports myproject' )
+// the new package is added to the module descriptor, which is compressed along with the resources
+assert buildLog.contains( 'Updated maven-jmod-plugin-incremental-update.jmod incrementally: 2 entries copied, 3 compressed, 0 removed.' )
+assert buildLog.contains( '[INFO] contains other' )
+assert !buildLog.contains( 'creating it from scratch' )
+
+def greeting = new Properties()
+new File( basedir, 'target/updated/classes/myproject/greeting.properties' ).withInputStream { greeting.load( it ) }
+assert greeting.greeting == 'Hello from two'
+
+def jmod = new File( basedir, 'target/jmods/maven-jmod-plugin-incremental-update.jmod' )
+new ZipFile( jmod ).withCloseable { zip ->
+    def names = zip.entries().collect { it.name } as Set
+    assert names == [ 'classes/module-info.class', 'classes/myproject/HelloWorld.class',
+                      'classes/myproject/greeting.properties', 'classes/other/other.properties',
+                      'conf/app.properties' ] as Set
+}
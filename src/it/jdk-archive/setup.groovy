@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+// JDK archives like those of the vendors, with the jmods of the JDK the build runs with
+def javaHome = new File( System.getProperty( 'java.home' ) )
+if ( !new File( javaHome, 'jmods' ).isDirectory() )
+{
+    javaHome = javaHome.parentFile
+}
+def jdk = new File( basedir, 'target/jdk/jdk-99' )
+jdk.deleteDir()
+new File( jdk, 'jmods' ).mkdirs()
+new File( jdk, 'bin' ).mkdirs()
+[ 'java.base.jmod', 'java.logging.jmod' ].each { name ->
+    new File( jdk, "jmods/${name}" ).bytes = new File( javaHome, "jmods/${name}" ).bytes
+}
+new File( jdk, 'bin/java' ).text = 'not extracted'
+// only the jmods folder of the top level directory is extracted
+def nested = new File( jdk, 'demo/jmods/demo.jmod' )
+nested.parentFile.mkdirs()
+nested.bytes = new File( javaHome, 'jmods/java.logging.jmod' ).bytes
+// a name which does not fit into the header of the tar format
+def deep = new File( jdk, 'lib/' + ( 'nested/' * 20 ) + 'file.txt' )
+deep.parentFile.mkdirs()
+deep.text = 'not extracted'
+
+def archives = new File( basedir, 'archives' )
+archives.mkdirs()
+def tar = [ 'tar', 'czf', new File( archives, 'jdk-linux-x64.tar.gz' ).absolutePath, 'jdk-99' ]
+        .execute( null, jdk.parentFile )
+assert tar.waitFor() == 0 : tar.err.text
+
+new ZipOutputStream( new FileOutputStream( new File( archives, 'jdk-windows-x64.zip' ) ) ).withCloseable { zip ->
+    jdk.parentFile.eachFileRecurse { file ->
+        if ( file.isFile() )
+        {
+            zip.putNextEntry( new ZipEntry( jdk.parentFile.toPath().relativize( file.toPath() ).toString()
+                    .replace( File.separatorChar, '/' as char ) ) )
+            zip.write( file.bytes )
+            zip.closeEntry()
+        }
+    }
+}
+return true
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+def log = new File( basedir, 'build.log' ).text
+def cache = new File( basedir, 'target/jdk-cache' )
+
+// the first build extracts the jmods of the tar.gz, the second one uses them, the third one extracts the zip
+def extracted = log.findAll( /Extracted 2 jmod files of (\S+) into (\S+)/ ) { match, archive, dir -> archive }
+assert extracted == [ 'jdk-linux-x64.tar.gz', 'jdk-windows-x64.zip' ] : log
+
+def folders = cache.listFiles().findAll { it.isDirectory() }
+assert folders.size() == 2
+folders.each { folder ->
+    assert folder.name ==~ /jdk-[0-9a-f]{64}/
+    assert folder.list() as Set == [ 'java.base.jmod', 'java.logging.jmod' ] as Set
+}
+
+// the jmod tool got the extracted folders as module path
+assert log.findAll( /--module-path=\S*jdk-cache[\/\\]jdk-[0-9a-f]{64}/ ).size() == 3 : log
+assert new File( basedir, 'target/jmods/maven-jmod-plugin-jdk-archive.jmod' ).isFile()
+
+return true
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+// a toolchain for the JDK the build runs with, the only one which is known to exist
+def javaHome = new File( System.getProperty( 'java.home' ) )
+if ( !new File( javaHome, 'jmods' ).isDirectory() )
+{
+    javaHome = javaHome.parentFile
+}
+new File( basedir, 'toolchains.xml' ).text = """<?xml version="1.0" encoding="UTF-8"?>
+<toolchains>
+  <toolchain>
+    <type>jdk</type>
+    <provides>
+      <version>${System.getProperty( 'java.specification.version' )}</version>
+      <id>jmod-it</id>
+    </provides>
+    <configuration>
+      <jdkHome>${javaHome.absolutePath}</jdkHome>
+    </configuration>
+  </toolchain>
+</toolchains>
+"""
+return true
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.security.MessageDigest
+import java.util.zip.ZipFile
+
+def name = 'maven-jmod-plugin-jdk-toolchains'
+def classifier = 'jdk' + System.getProperty( 'java.specification.version' ).replaceFirst( '^1\\.', '' )
+def buildLog = new File( basedir, 'build.log' ).text
+
+def jmod = new File( basedir, "target/jmods/${name}-${classifier}.jmod" )
+assert buildLog.contains( "Created ${jmod.name} with " )
+
+def entries = { File file -> new ZipFile( file ).withCloseable { zip -> zip.entries().collect { it.name } as Set } }
+assert entries( jmod ) == entries( new File( basedir, "target/jmods/${name}.jmod" ) )
+assert entries( jmod ) == [ 'classes/module-info.class', 'classes/myproject/HelloWorld.class',
+                            'conf/app.properties' ] as Set
+
+// both files of the jmod tools are read to checksum them
+[ jmod, new File( basedir, "target/jmods/${name}.jmod" ) ].each { file ->
+    def checksum = new File( file.parentFile, file.name + '.sha256' )
+    assert checksum.text == MessageDigest.getInstance( 'SHA-256' ).digest( file.bytes ).encodeHex().toString()
+}
+
+def repository = new File( localRepositoryPath, 'org/apache/maven/plugins/' + name + '/99.0' )
+assert new File( repository, "${name}-99.0.jmod" ).isFile()
+assert new File( repository, "${name}-99.0-${classifier}.jmod" ).isFile()
+
+return true
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+
+def modules = [ 'a', 'b', 'c', 'd', 'e', 'f' ]
+for ( module in modules )
+{
+    def jmod = new File( basedir, "module-${module}/target/jmods/module-${module}.jmod" )
+    assert jmod.isFile() : "${jmod} is missing."
+    jmod.withInputStream { assert it.read() == 'J' as char && it.read() == 'M' as char : "${jmod} is not a jmod file." }
+}
+
+def buildLog = new File( basedir, 'build.log' ).text
+assert !( buildLog =~ /\* org\.apache\.maven\.plugins:maven-jmod-plugin/ ) : 'the goals are not marked as thread-safe.'
+
+// the last build started with clean, so the spans of its six create goals are left, each on a line of its own
+def lines = new File( basedir, 'target/jmod-trace.jsonl' ).readLines()
+assert lines.size() == modules.size()
+def artifactIds = lines.collect { line ->
+    def resource = new JsonSlurper().parseText( line ).resourceSpans[0].resource.attributes
+    resource.find { it.key == 'maven.project.artifactId' }.value.stringValue
+}
+assert artifactIds as Set == modules.collect { "module-${it}".toString() } as Set
+
+// the executions of all modules are collected in the timings of the top level project, slowest first
+def reactor = new JsonSlurper().parse( new File( basedir, 'target/jmod-timings/reactor.json' ) )
+assert reactor.executions.size() == modules.size()
+assert reactor.executions.collect { it.project } as Set ==
+    modules.collect { "org.apache.maven.plugins:module-${it}:99.0".toString() } as Set
+assert reactor.executions.every { it.goal == 'create' && it.success }
+assert reactor.executions.collect { it.totalMillis } == reactor.executions.collect { it.totalMillis }.sort().reverse()
+assert Math.abs( reactor.totalMillis - reactor.executions.sum { it.totalMillis } ) < 0.01
+
+// all modules share one archive, which must have been published exactly once and without leftovers
+def cds = new File( basedir, 'target/jmod-cds' )
+if ( cds.isDirectory() )
+{
+    def files = cds.listFiles().collect { it.name }
+    assert files.findAll { it.endsWith( '.jsa' ) }.size() == 1 : "unexpected archives ${files}"
+    assert files.findAll { it.endsWith( '.tmp' ) }.isEmpty() : "leftover archives ${files}"
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.zip.ZipFile
+
+def name = 'maven-jmod-plugin-platform-variants'
+def buildLog = new File( basedir, 'build.log' ).text
+
+// the class and the configuration are copied, the module descriptor gets the target platform
+assert buildLog.contains( "Created ${name}-linux-x64.jmod: 2 entries copied, 2 compressed." )
+assert buildLog.contains( "Created ${name}-linux-aarch64.jmod: 2 entries copied, 3 compressed." )
+assert buildLog.contains( "Created ${name}-linux-musl-x64.jmod: 3 entries copied, 1 compressed." )
+
+def shared = [ 'classes/module-info.class', 'classes/myproject/HelloWorld.class', 'conf/app.properties' ]
+def expected = [
+    '': shared + [ 'lib/first.so' ],
+    '-linux-x64': shared + [ 'lib/libhello.so' ],
+    '-linux-aarch64': shared + [ 'bin/hello.sh', 'lib/libhello.so' ],
+    '-linux-musl-x64': shared + [ 'lib/libhello.so' ] ]
+def platforms = [ '': 'linux-amd64', '-linux-x64': 'linux-amd64', '-linux-aarch64': 'linux-aarch64',
+                  '-linux-musl-x64': 'linux-amd64' ]
+
+def javaHome = new File( System.getProperty( 'java.home' ) )
+if ( !new File( javaHome, 'jmods' ).isDirectory() )
+{
+    javaHome = javaHome.parentFile
+}
+def exe = System.getProperty( 'os.name' ).toLowerCase( Locale.ROOT ).contains( 'windows' ) ? '.exe' : ''
+
+def repository = new File( localRepositoryPath, 'org/apache/maven/plugins/' + name + '/99.0' )
+expected.each { classifier, entries ->
+    def jmod = new File( basedir, "target/jmods/${name}${classifier}.jmod" )
+    new ZipFile( jmod ).withCloseable { zip ->
+        assert zip.entries().collect { it.name } as Set == entries as Set
+        if ( classifier )
+        {
+            def lib = zip.getInputStream( zip.getEntry( 'lib/libhello.so' ) ).text
+            assert lib.contains( classifier.contains( 'aarch64' ) ? 'of linux-aarch64' : 'of linux-x64' )
+        }
+    }
+
+    // the jmod tool reads the target platform from the module descriptor
+    def describe = [ new File( javaHome, "bin/jmod${exe}" ).path, 'describe', jmod.path ].execute().text
+    assert describe.contains( 'platform ' + platforms[classifier] ) : describe
+
+    assert new File( repository, "${name}-99.0${classifier}.jmod" ).isFile()
+}
+
+return true
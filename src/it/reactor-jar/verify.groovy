@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.zip.ZipFile
+
+def buildLog = new File( basedir, 'build.log' ).text
+def classes = new File( basedir, 'shared/target/classes' ).absolutePath
+def jar = new File( basedir, 'shared/target/shared-99.0.jar' )
+assert jar.isFile()
+
+// the classes of the reactor are not requested, so the directory of the packaged jar of shared is on the module path
+assert !buildLog.contains( 'of the reactor for org.apache.maven.plugins:shared:jar:99.0' )
+def modulePaths = buildLog.findAll( /--module-path=\S+/ )
+assert modulePaths.size() == 1
+def modulePath = modulePaths[0].substring( '--module-path='.length() ).split( File.pathSeparator ) as List
+assert modulePath.contains( jar.parentFile.absolutePath )
+assert !modulePath.contains( classes )
+
+def jmod = new File( basedir, 'app/target/jmods/app.jmod' )
+new ZipFile( jmod ).withCloseable { zip ->
+    assert zip.entries().collect { it.name } as Set ==
+            [ 'classes/module-info.class', 'classes/org/apache/maven/plugins/jmod/it/app/Greeting.class' ] as Set
+}
+
+return true
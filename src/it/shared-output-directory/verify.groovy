@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.zip.ZipFile
+
+def jmods = new File( basedir, 'target/distribution/jmods' )
+def expected = [ 'module-a.jmod', 'module-b.jmod', 'module-c.jmod', 'module-c-linux-x64.jmod',
+                 'module-c-linux-aarch64.jmod' ]
+assert jmods.list().findAll { it.endsWith( '.jmod' ) } as Set == expected as Set
+// no leftovers of the files which have been written in parallel
+assert jmods.list().findAll { !it.endsWith( '.jmod' ) }.isEmpty() : "unexpected files ${jmods.list()}"
+
+for ( name in expected )
+{
+    def jmod = new File( jmods, name )
+    jmod.withInputStream { assert it.read() == 'J' as char && it.read() == 'M' as char : "${jmod} is not a jmod file." }
+    def module = name.substring( 'module-'.length(), 'module-'.length() + 1 )
+    new ZipFile( jmod ).withCloseable { zip ->
+        assert zip.getEntry( 'classes/module-info.class' ) != null : "${jmod} has no module descriptor."
+        def greeting = zip.getEntry( "classes/org/apache/maven/plugins/jmod/it/${module}/Greeting.class" )
+        assert greeting != null : "${jmod} does not contain the classes of module-${module}."
+        // every entry can be read completely
+        zip.entries().each { entry -> zip.getInputStream( entry ).withCloseable { it.bytes } }
+    }
+}
+
+def buildLog = new File( basedir, 'build.log' ).text
+assert !( buildLog =~ /\* org\.apache\.maven\.plugins:maven-jmod-plugin/ ) : 'the goals are not marked as thread-safe.'
+return true
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+
+def report = new File( basedir, 'target/jmod-size-report.json' )
+assert report.isFile() : 'size report is missing.'
+
+def json = new JsonSlurper().parse( report )
+assert json.jmod.endsWith( 'maven-jmod-plugin-size-report.jmod' )
+assert json.fileSize == new File( basedir, 'target/jmods/maven-jmod-plugin-size-report.jmod' ).length()
+assert json.entries == 3
+
+def sections = json.sections.collectEntries { [ it.name, it ] }
+assert sections.keySet() == [ 'classes', 'conf', 'include', 'legal', 'lib', 'bin', 'man' ] as Set
+assert sections.classes.entries == 2
+assert sections.lib.entries == 1
+assert sections.lib.size == new File( basedir, 'src/main/libs/first.so' ).length()
+assert sections.conf.entries == 0
+
+assert json.largestEntries.size() == 2
+
+assert json.classPath.size() == 1
+assert json.classPath[0].element.endsWith( 'classes' )
+assert json.classPath[0].entries == 2
+assert json.classPath[0].compressedSize == sections.classes.compressedSize
+
+def buildLog = new File( basedir, 'build.log' ).text
+assert buildLog.contains( 'The size report has been written to ' )
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.zip.ZipFile
+
+def buildLog = new File( basedir, 'build.log' ).text
+
+// module-info and Greeting of app, Names of the jar of lib
+def all = ( buildLog =~ /Stripped LineNumberTable, LocalVariableTable, SourceFile from 3 classes \((\d) rewritten\): (\d+) bytes saved/ )
+        .collect { it }
+assert all.size() == 2 : buildLog
+assert all[0][1] == '3' && ( all[0][2] as long ) > 0
+// the classes of app are kept, the jar of lib is packaged again
+assert ( all[1][1] as int ) <= 1 && all[1][2] == all[0][2]
+assert buildLog =~ /Stripped LineNumberTable from 3 classes \(3 rewritten\): \d+ bytes saved/
+
+def javaHome = new File( System.getProperty( 'java.home' ) )
+if ( !new File( javaHome, 'bin/javap' ).isFile() && !new File( javaHome, 'bin/javap.exe' ).isFile() )
+{
+    javaHome = javaHome.parentFile
+}
+def exe = System.getProperty( 'os.name' ).toLowerCase( Locale.ROOT ).contains( 'windows' ) ? '.exe' : ''
+def classes = new File( basedir, 'app/target/verify-classes' )
+new ZipFile( new File( basedir, 'app/target/jmods/app.jmod' ) ).withCloseable { zip ->
+    assert zip.getEntry( 'classes/org/apache/maven/plugins/jmod/it/app/greeting.properties' ) != null
+    [ 'org/apache/maven/plugins/jmod/it/app/Greeting', 'org/apache/maven/plugins/jmod/it/lib/Names' ].each { name ->
+        def file = new File( classes, name + '.class' )
+        file.parentFile.mkdirs()
+        file.bytes = zip.getInputStream( zip.getEntry( 'classes/' + name + '.class' ) ).bytes
+        def javap = [ new File( javaHome, "bin/javap${exe}" ).path, '-v', '-l', file.path ].execute().text
+        // only the line numbers are stripped by the last build
+        assert !javap.contains( 'LineNumberTable:' ) : javap
+        assert javap.contains( 'LocalVariableTable:' ) : javap
+        assert javap.contains( 'SourceFile: "' ) : javap
+    }
+}
+
+return true
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+
+def timings = new File( basedir, 'target/jmod-timings/create-default-create.json' )
+assert timings.isFile() : 'timings of the create goal are missing.'
+
+def json = new JsonSlurper().parse( timings )
+assert json.project == 'org.apache.maven.plugins:maven-jmod-plugin-timings-report:99.0'
+assert json.goal == 'create'
+assert json.executionId == 'default-create'
+assert json.success
+assert json.totalMillis > 0
+def phases = json.phases.collect { it.name }
+assert phases.containsAll( [ 'toolchain', 'resolve-paths', 'command-line', 'jmod', 'attach-artifact' ] )
+assert json.phases.find { it.name == 'jmod' }.durationMillis > 0
+assert json.phases.sum { it.durationMillis } <= json.totalMillis
+
+def reactor = new JsonSlurper().parse( new File( basedir, 'target/jmod-timings/reactor.json' ) )
+assert reactor.executions.size() == 1
+assert reactor.executions[0].goal == 'create'
+assert reactor.executions[0].totalMillis == json.totalMillis
+
+def buildLog = new File( basedir, 'build.log' ).text
+assert buildLog.contains( 'jmod:create took ' )
+
+// metrics of the forked jmod process
+def process = json.phases.find { it.name == 'jmod' }.attributes
+assert process['process.wallMillis'] > 0
+if ( new File( '/proc/self/stat' ).isFile() )
+{
+    assert process['process.cpuMillis'] > 0
+    assert process['process.userCpuMillis'] + process['process.systemCpuMillis'] == process['process.cpuMillis']
+    assert process['process.peakRssBytes'] > 1024 * 1024
+}
+assert buildLog.contains( 'jmod process ' )
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.sun.net.httpserver.HttpServer
+
+// stand-in for an OpenTelemetry collector, which stores each export request in a file
+def received = new File( basedir, 'collector' )
+received.mkdirs()
+def server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ), 0 )
+server.createContext( '/v1/traces' ) { exchange ->
+    def index = received.list().length
+    new File( received, "request-${index}.json" ).bytes = exchange.requestBody.bytes
+    exchange.sendResponseHeaders( 200, -1 )
+    exchange.close()
+}
+server.start()
+context.put( 'collector', server )
+
+new File( basedir, 'test.properties' ).text =
+        "jmod.trace.endpoint=http://localhost:${server.address.port}/v1/traces\n"
+return true
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+
+context.get( 'collector' )?.stop( 0 )
+
+def requests = new File( basedir, 'collector' ).listFiles()
+assert requests != null && requests.length == 1 : 'the collector has not received the spans.'
+def received = new JsonSlurper().parse( requests[0] )
+
+def lines = new File( basedir, 'target/jmod-traces.jsonl' ).readLines()
+assert lines.size() == 1
+assert new JsonSlurper().parseText( lines[0] ) == received
+
+def resource = received.resourceSpans[0].resource.attributes.collectEntries { [ it.key, it.value.stringValue ] }
+assert resource['service.name'] == 'maven-jmod-plugin'
+assert resource['maven.project.artifactId'] == 'maven-jmod-plugin-trace-spans'
+
+def spans = received.resourceSpans[0].scopeSpans[0].spans
+def root = spans.find { it.parentSpanId == null }
+assert root.name == 'jmod:create'
+assert root.status.code == 1
+assert root.attributes.find { it.key == 'maven.goal' }.value.stringValue == 'create'
+
+def children = spans.findAll { it != root }
+assert children.every { it.parentSpanId == root.spanId && it.traceId == root.traceId }
+assert children.every { it.startTimeUnixNano as long >= root.startTimeUnixNano as long }
+assert children.every { it.endTimeUnixNano as long <= root.endTimeUnixNano as long }
+def names = children.collect { it.name }
+assert names.containsAll( [ 'toolchain', 'resolve-paths', 'scan-classes', 'scan-libs', 'jmod', 'attach-artifact' ] )
+
+def attributes = { span -> span.attributes.collectEntries { [ it.key, it.value ] } }
+def libs = attributes( children.find { it.name == 'scan-libs' } )
+assert libs['jmod.section.entries'].intValue == '1'
+assert libs['jmod.section.bytes'].intValue == String.valueOf( new File( basedir, 'src/main/libs/first.so' ).length() )
+def jmod = attributes( children.find { it.name == 'jmod' } )
+assert jmod['jmod.output.bytes'].intValue ==
+        String.valueOf( new File( basedir, 'target/jmods/maven-jmod-plugin-trace-spans.jmod' ).length() )
+assert attributes( children.find { it.name == 'resolve-paths' } ).containsKey( 'jmod.classpath.size' )
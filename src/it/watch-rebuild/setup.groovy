@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+// changes a configuration file once the watch goal has created the jmod file, until the build has ended: the goal
+// may only start watching some time after the file has been created
+def jmod = new File( basedir, 'target/jmods/maven-jmod-plugin-watch-rebuild.jmod' )
+def config = new File( basedir, 'src/main/configs/watched.properties' )
+def changer = Thread.startDaemon( 'watch-rebuild-changer' ) {
+    try {
+        while ( !jmod.isFile() ) {
+            Thread.sleep( 100 )
+        }
+        for ( int i = 0; ; i++ ) {
+            Thread.sleep( 1000 )
+            config.text = "change=${i}\n"
+        }
+    } catch ( InterruptedException e ) {
+        // the build has ended
+    }
+}
+context.put( 'changer', changer )
+return true
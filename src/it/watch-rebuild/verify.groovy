@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import groovy.json.JsonSlurper
+import java.util.zip.ZipFile
+
+context.get( 'changer' )?.interrupt()
+
+def buildLog = new File( basedir, 'build.log' ).text
+assert buildLog.contains( 'Watching 2 directories for changes' )
+assert buildLog =~ /Rebuilt maven-jmod-plugin-watch-rebuild\.jmod in \d+ ms after \d+ changes\./
+assert buildLog.contains( 'The watch goal only creates maven-jmod-plugin-watch-rebuild.jmod, '
+        + 'the parameters maxPackagingTime are ignored.' )
+
+// the timings only cover the rebuild, not the initial creation
+def timings = new JsonSlurper().parse( new File( basedir, 'target/jmod-timings/watch-default-cli.json' ) )
+def phases = timings.phases.collect { it.name }
+assert !phases.contains( 'toolchain' )
+assert phases.count( 'command-line' ) == 1
+
+def jmod = new File( basedir, 'target/jmods/maven-jmod-plugin-watch-rebuild.jmod' )
+new ZipFile( jmod ).withCloseable { zip ->
+    def entries = zip.entries().collect { it.name }
+    assert entries.contains( 'conf/app.properties' )
+    assert entries.contains( 'conf/watched.properties' )
+    assert entries.contains( 'classes/myproject/HelloWorld.class' )
+
+    // the rebuilt entry has one of the contents written by setup.groovy
+    def watched = zip.getInputStream( zip.getEntry( 'conf/watched.properties' ) ).text
+    assert watched ==~ /change=\d+\n/
+}
+
+return true
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.toolchain.Toolchain;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.plexus.languages.java.jpms.LocationManager;
+
+/**
+ * The inputs of the benchmarks and the goals which are measured. The inputs are generated by
+ * {@link ScaleProjectGenerator}, so they are the same for every run and every version of the plugin.
+ */
+final class BenchmarkFixtures {
+
+    /**
+     * A build without toolchains: the goals use the <code>jmod</code> tool of the running JDK.
+     */
+    static final ToolchainManager NO_TOOLCHAINS = new ToolchainManager() {
+        @Override
+        public Toolchain getToolchainFromBuildContext(String type, MavenSession context) {
+            return null;
+        }
+
+        @Override
+        public List<Toolchain> getToolchains(MavenSession session, String type, Map<String, String> requirements) {
+            return Collections.emptyList();
+        }
+    };
+
+    private BenchmarkFixtures() {}
+
+    static File createTempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * @param directory the directory of the jars
+     * @param count the number of jars
+     * @return the modular jars of the modules {@link ScaleProjectGenerator#modularDependency(int)}
+     */
+    static List<File> createModularJars(File directory, int count) throws IOException {
+        List<File> jars = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String module = ScaleProjectGenerator.modularDependency(i);
+            File jar = new File(directory, module + ".jar");
+            ScaleProjectGenerator.createModularJar(jar, module, i);
+            jars.add(jar);
+        }
+        return jars;
+    }
+
+    /**
+     * @param basedir the base directory, the classes are expected in <code>target/classes</code>
+     * @param dependencies the resolved dependencies
+     * @return a project as the create goal sees it after the dependency resolution
+     */
+    static MavenProject createProject(File basedir, List<File> dependencies) {
+        Model model = new Model();
+        model.setGroupId("org.apache.maven.plugins.jmod.benchmark");
+        model.setArtifactId("bench");
+        model.setVersion("1.0");
+        model.setPackaging("jmod");
+        Build build = new Build();
+        build.setDirectory(new File(basedir, "target").getAbsolutePath());
+        build.setOutputDirectory(new File(basedir, "target/classes").getAbsolutePath());
+        model.setBuild(build);
+
+        MavenProject project = new MavenProject(model);
+        project.setFile(new File(basedir, "pom.xml"));
+        project.setArtifact(artifact(model.getArtifactId(), "jmod", null));
+        Set<Artifact> artifacts = new LinkedHashSet<>();
+        for (File dependency : dependencies) {
+            Artifact artifact = artifact(dependency.getName().replace(".jar", ""), "jar", dependency);
+            artifacts.add(artifact);
+        }
+        project.setArtifacts(artifacts);
+        return project;
+    }
+
+    private static Artifact artifact(String artifactId, String type, File file) {
+        Artifact artifact = new DefaultArtifact(
+                "org.apache.maven.plugins.jmod.benchmark",
+                artifactId,
+                "1.0",
+                Artifact.SCOPE_COMPILE,
+                type,
+                null,
+                new DefaultArtifactHandler(type));
+        artifact.setFile(file);
+        return artifact;
+    }
+
+    /**
+     * @return the create goal configured with its defaults, as far as the benchmarks need them, without platform
+     *         variants, so it attaches no artifacts
+     */
+    static JModCreateMojo createMojo(MavenProject project) {
+        JModCreateMojo mojo = quiet(new JModCreateMojo(NO_TOOLCHAINS, new LocationManager(), null));
+        set(mojo, "project", project);
+        set(mojo, "targetClassesDirectory", new File(project.getBuild().getOutputDirectory()));
+        set(mojo, "outputDirectory", new File(project.getBuild().getDirectory()));
+        set(mojo, "outputFileName", project.getArtifactId());
+        set(mojo, "javaHome", javaHome());
+        return mojo;
+    }
+
+    /**
+     * @return the JDK of the <code>jmod</code> tool which is used by the goals without a toolchain
+     */
+    static File javaHome() {
+        File javaHome = new File(System.getProperty("java.home"));
+        return new File(javaHome, "jmods").isDirectory() ? javaHome : javaHome.getParentFile();
+    }
+
+    /**
+     * The output of <code>jmod list</code> and <code>jmod describe</code> is logged on info level, which would only
+     * measure the console.
+     */
+    static <T extends AbstractJModMojo> T quiet(T mojo) {
+        mojo.setLog(new SystemStreamLog() {
+            @Override
+            public boolean isInfoEnabled() {
+                return false;
+            }
+
+            @Override
+            public void info(CharSequence content) {
+                // nothing
+            }
+        });
+        return mojo;
+    }
+
+    static void set(Object target, String name, Object value) {
+        try {
+            field(target.getClass(), name).set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Object get(Object target, String name) {
+        try {
+            return field(target.getClass(), name).get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Field field(Class<?> type, String name) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // try the super class
+            }
+        }
+        throw new IllegalArgumentException("No field " + name + " in " + type.getName());
+    }
+
+    static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    static Object invoke(Method method, Object target, Object... args) throws Exception {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.shared.utils.cli.CommandLineUtils;
+import org.apache.maven.shared.utils.cli.Commandline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The construction of the <code>jmod create</code> command line from the resolved paths, including the rendering of
+ * the arguments for the shell.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandLineBenchmark {
+
+    private static final Method CREATE_COMMAND_LINE =
+            BenchmarkFixtures.method(JModCreateMojo.class, "createJModCreateCommandLine", File.class);
+
+    @Param({"10", "100", "1000"})
+    public int dependencies;
+
+    private File basedir;
+
+    private JModCreateMojo mojo;
+
+    private File jmodFile;
+
+    @Setup
+    public void setUp() throws Exception {
+        basedir = BenchmarkFixtures.createTempDirectory("jmod-command-line");
+        List<File> jars = BenchmarkFixtures.createModularJars(new File(basedir, "repository"), dependencies);
+        // not required by the module, so the dependencies end up on the class path
+        ScaleProjectGenerator.createClasses(
+                new File(basedir, "target/classes"), "bench.main", Collections.<String>emptyList(), 1);
+        mojo = BenchmarkFixtures.createMojo(BenchmarkFixtures.createProject(basedir, jars));
+        BenchmarkFixtures.invoke(BenchmarkFixtures.method(JModCreateMojo.class, "preparePaths"), mojo);
+        jmodFile = new File(basedir, "target/jmods/bench.jmod");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkFixtures.deleteRecursively(basedir);
+    }
+
+    @Benchmark
+    public String createCommandLine() throws Exception {
+        Commandline cmd = (Commandline) BenchmarkFixtures.invoke(CREATE_COMMAND_LINE, mojo, jmodFile);
+        cmd.setExecutable("jmod");
+        return CommandLineUtils.toString(cmd.getCommandline());
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.utils.cli.Commandline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The create, list and describe goals against modules of different sizes, per engine:
+ * <ul>
+ * <li><code>fork</code>: the goal as the plugin runs it, which forks the <code>jmod</code> tool</li>
+ * <li><code>toolProvider</code>: the same <code>jmod</code> arguments, with the tool running in-process</li>
+ * <li><code>jmodFile</code>: the plugin's own reader of <code>jmod</code> files, which the extract and diff goals
+ * use</li>
+ * <li><code>incremental</code>: the create goal updating the previous file after a single resource has changed</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JModToolBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int classes;
+
+    private File basedir;
+
+    private MavenProject project;
+
+    private JModCreateMojo createMojo;
+
+    private JModCreateMojo incrementalMojo;
+
+    private File changedResource;
+
+    private int changes;
+
+    private JModListMojo listMojo;
+
+    private JModDescribeMojo describeMojo;
+
+    private JModToolProvider tool;
+
+    private String[] createArguments;
+
+    private File created;
+
+    private File jmod;
+
+    @Setup
+    public void setUp() throws Exception {
+        basedir = BenchmarkFixtures.createTempDirectory("jmod-tool");
+        ScaleProjectGenerator.createClasses(
+                new File(basedir, "target/classes"), "bench.main", Collections.<String>emptyList(), classes);
+        project = BenchmarkFixtures.createProject(basedir, Collections.<File>emptyList());
+        createMojo = BenchmarkFixtures.createMojo(project);
+        tool = new JModToolProvider();
+
+        // the arguments of the goal, for the in-process engine
+        BenchmarkFixtures.invoke(BenchmarkFixtures.method(JModCreateMojo.class, "preparePaths"), createMojo);
+        created = new File(basedir, "target/jmods/bench.jmod");
+        Commandline cmd = (Commandline) BenchmarkFixtures.invoke(
+                BenchmarkFixtures.method(JModCreateMojo.class, "createJModCreateCommandLine", File.class),
+                createMojo,
+                created);
+        createArguments = cmd.getArguments();
+
+        // the module which is listed and described
+        jmod = new File(basedir, "bench.jmod");
+        String[] arguments = createArguments.clone();
+        arguments[arguments.length - 1] = jmod.getAbsolutePath();
+        tool.run(arguments);
+
+        incrementalMojo = BenchmarkFixtures.createMojo(project);
+        BenchmarkFixtures.set(incrementalMojo, "incremental", true);
+        changedResource = new File(basedir, "target/classes/bench/main/p0000/changed.txt");
+
+        listMojo = BenchmarkFixtures.quiet(new JModListMojo(BenchmarkFixtures.NO_TOOLCHAINS));
+        BenchmarkFixtures.set(listMojo, "jmodFile", jmod);
+        BenchmarkFixtures.set(listMojo, "outputDirectory", basedir);
+        describeMojo = BenchmarkFixtures.quiet(new JModDescribeMojo(BenchmarkFixtures.NO_TOOLCHAINS));
+        BenchmarkFixtures.set(describeMojo, "jmodFile", jmod);
+        BenchmarkFixtures.set(describeMojo, "outputDirectory", basedir);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkFixtures.deleteRecursively(basedir);
+    }
+
+    @Benchmark
+    public long createFork() throws Exception {
+        // the goal refuses to replace the artifact of the previous invocation
+        project.getArtifact().setFile(null);
+        createMojo.doExecute();
+        return created.length();
+    }
+
+    @Benchmark
+    public long createToolProvider() throws IOException {
+        if (created.exists() && !created.delete()) {
+            throw new IOException("Unable to delete " + created);
+        }
+        created.getParentFile().mkdirs();
+        tool.run(createArguments);
+        return created.length();
+    }
+
+    @Benchmark
+    public long createIncremental() throws Exception {
+        // the first invocation creates the file, the following ones update it
+        Files.write(changedResource.toPath(), Integer.toString(changes++).getBytes(StandardCharsets.US_ASCII));
+        project.getArtifact().setFile(null);
+        incrementalMojo.doExecute();
+        return created.length();
+    }
+
+    @Benchmark
+    public void listFork() throws Exception {
+        listMojo.doExecute();
+    }
+
+    @Benchmark
+    public String listToolProvider() throws IOException {
+        return tool.run("list", jmod.getAbsolutePath());
+    }
+
+    @Benchmark
+    public int listJModFile() throws IOException {
+        try (JModFile file = JModFile.open(jmod)) {
+            return file.entries().size();
+        }
+    }
+
+    @Benchmark
+    public void describeFork() throws Exception {
+        describeMojo.doExecute();
+    }
+
+    @Benchmark
+    public String describeToolProvider() throws IOException {
+        return tool.run("describe", jmod.getAbsolutePath());
+    }
+
+    @Benchmark
+    public ModuleInfo describeJModFile() throws IOException {
+        try (JModFile file = JModFile.open(jmod);
+                InputStream in = file.getInputStream(file.getEntry("classes/" + ModuleInfo.MODULE_INFO_CLASS))) {
+            return ModuleInfo.read(in);
+        }
+    }
+}
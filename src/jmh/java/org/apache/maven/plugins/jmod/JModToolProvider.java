@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+
+/**
+ * The <code>jmod</code> tool of the running JDK, called in-process via <code>java.util.spi.ToolProvider</code>. The
+ * plugin is built for Java 8, so the Java 9 API is used via reflection.
+ */
+final class JModToolProvider {
+
+    private final Object tool;
+
+    private final Method run;
+
+    JModToolProvider() throws ReflectiveOperationException {
+        Class<?> toolProvider = Class.forName("java.util.spi.ToolProvider");
+        Object found = toolProvider.getMethod("findFirst", String.class).invoke(null, "jmod");
+        this.tool = found.getClass().getMethod("orElse", Object.class).invoke(found, (Object) null);
+        if (tool == null) {
+            throw new IllegalStateException("The running JDK does not provide the jmod tool");
+        }
+        this.run = toolProvider.getMethod("run", PrintStream.class, PrintStream.class, String[].class);
+    }
+
+    /**
+     * @param args the arguments of the tool
+     * @return the output of the tool
+     * @throws IOException if the tool fails
+     */
+    String run(String... args) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exitCode;
+        try (PrintStream outStream = new PrintStream(out, true, "UTF-8");
+                PrintStream errStream = new PrintStream(err, true, "UTF-8")) {
+            exitCode = (Integer) run.invoke(tool, outStream, errStream, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException(e);
+        }
+        if (exitCode != 0) {
+            throw new IOException("jmod failed with exit code " + exitCode + ": " + err.toString("UTF-8"));
+        }
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The resolution of the class path and the module path by the create goal, for a module which requires all of its
+ * modular dependencies. The module descriptors of the dependencies are read on every resolution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreparePathsBenchmark {
+
+    private static final Method PREPARE_PATHS = BenchmarkFixtures.method(JModCreateMojo.class, "preparePaths");
+
+    @Param({"10", "100", "1000"})
+    public int dependencies;
+
+    private File basedir;
+
+    private JModCreateMojo mojo;
+
+    @Setup
+    public void setUp() throws Exception {
+        basedir = BenchmarkFixtures.createTempDirectory("jmod-prepare-paths");
+        List<File> jars = BenchmarkFixtures.createModularJars(new File(basedir, "repository"), dependencies);
+        List<String> requires = new ArrayList<>(dependencies);
+        for (int i = 0; i < dependencies; i++) {
+            requires.add(ScaleProjectGenerator.modularDependency(i));
+        }
+        ScaleProjectGenerator.createClasses(new File(basedir, "target/classes"), "bench.main", requires, 1);
+        mojo = BenchmarkFixtures.createMojo(BenchmarkFixtures.createProject(basedir, jars));
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkFixtures.deleteRecursively(basedir);
+    }
+
+    @Benchmark
+    public Object preparePaths() throws Exception {
+        BenchmarkFixtures.invoke(PREPARE_PATHS, mojo);
+        return BenchmarkFixtures.get(mojo, "modulepathElements");
+    }
+}
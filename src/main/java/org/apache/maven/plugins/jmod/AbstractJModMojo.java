@@ -22,12 +22,15 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.shared.utils.Os;
@@ -53,6 +56,71 @@ public abstract class AbstractJModMojo extends AbstractMojo {
     @Parameter(defaultValue = "${session}", readonly = true, required = true)
     private MavenSession session;
 
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true, required = true)
+    private MojoExecution mojoExecution;
+
+    /**
+     * Measure the phases of the goal execution (toolchain lookup, path resolution, the jmod call etc.), log a one
+     * line summary and write them as JSON into {@link #timingsDirectory}. The timings of all executions of the build
+     * are additionally collected in <code>reactor.json</code> in the timings directory of the top level project. Goals
+     * which run without a project only log the summary. As <code>reactor.json</code> is written again for each
+     * execution, the timings are off by default.
+     */
+    @Parameter(defaultValue = "false", property = "jmod.timings")
+    private boolean timings;
+
+    /**
+     * The directory the timings of the goal executions are written to.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/jmod-timings", property = "jmod.timingsDirectory")
+    private File timingsDirectory;
+
+    /**
+     * The OTLP/HTTP endpoint to send the trace spans of the goal execution to, for example
+     * <code>http://localhost:4318/v1/traces</code> of a local OpenTelemetry collector. The execution is a span with a
+     * child span for each phase.
+     */
+    @Parameter(property = "jmod.trace.endpoint")
+    private String traceEndpoint;
+
+    /**
+     * The file to append the trace spans of the goal execution to, one OTLP/JSON export request per line.
+     */
+    @Parameter(property = "jmod.trace.file")
+    private File traceFile;
+
+    /**
+     * Options for the JVM of the forked <code>jmod</code> tool, which are passed as <code>-J</code> options, for
+     * example:
+     *
+     * <pre>
+     * &lt;jmodJvmArgs&gt;
+     *   &lt;jmodJvmArg&gt;-XX:TieredStopAtLevel=1&lt;/jmodJvmArg&gt;
+     *   &lt;jmodJvmArg&gt;-Xmx256m&lt;/jmodJvmArg&gt;
+     * &lt;/jmodJvmArgs&gt;
+     * </pre>
+     */
+    @Parameter(property = "jmod.jvmArgs")
+    private List<String> jmodJvmArgs;
+
+    /**
+     * Start the forked <code>jmod</code> tool with an AppCDS archive of its classes, which saves loading and
+     * verifying them on every call. The archive is created by the first call and reused by the following ones; there
+     * is one archive per JDK in {@link #appCdsDirectory}. Requires a JDK 13 or later for the tool, for older JDKs the
+     * option is ignored.
+     */
+    @Parameter(defaultValue = "false", property = "jmod.appCds")
+    private boolean appCds;
+
+    /**
+     * The directory the AppCDS archives of the <code>jmod</code> tool are kept in. By default the archives are shared
+     * by all modules of the build.
+     */
+    @Parameter(defaultValue = "${session.topLevelProject.build.directory}/jmod-cds", property = "jmod.appCdsDirectory")
+    private File appCdsDirectory;
+
+    private final PhaseTimer timer = new PhaseTimer();
+
     /**
      * <p>
      * Specify the requirements for this JDK toolchain. This overrules the toolchain selected by the
@@ -69,10 +137,132 @@ public abstract class AbstractJModMojo extends AbstractMojo {
         this.toolchainManager = toolchainManager;
     }
 
+    public final void execute() throws MojoExecutionException, MojoFailureException {
+        boolean success = false;
+        try {
+            doExecute();
+            success = true;
+        } finally {
+            timer.stop();
+            if (timings) {
+                reportTimings(success);
+            }
+            if (isTracing()) {
+                exportTrace(success);
+            }
+        }
+    }
+
+    /**
+     * The work of the goal, measured phase by phase via {@link #phase(String)}.
+     */
+    protected abstract void doExecute() throws MojoExecutionException, MojoFailureException;
+
+    /**
+     * Start a new phase of the timings, which ends the current one.
+     *
+     * @param name the name of the phase, for example <code>toolchain</code> or <code>jmod</code>
+     */
+    protected void phase(String name) {
+        timer.phase(name);
+    }
+
+    /**
+     * Start the timings again for a goal which repeats its work, so they only cover the last repetition.
+     */
+    protected void restartTimings() {
+        timer.restart();
+    }
+
+    /**
+     * Set an attribute of the current phase, which is exported with its trace span.
+     *
+     * @param key the key, for example <code>jmod.entries</code>
+     * @param value a {@link String}, {@link Long}, {@link Integer}, {@link Double} or {@link Boolean}
+     */
+    protected void attribute(String key, Object value) {
+        timer.attribute(key, value);
+    }
+
+    /**
+     * @return whether the spans are exported, so attributes which are expensive to compute are needed
+     */
+    protected boolean isTracing() {
+        return StringUtils.isNotEmpty(traceEndpoint) || traceFile != null;
+    }
+
+    private void exportTrace(boolean success) {
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("service.name", "maven-jmod-plugin");
+        resource.put("maven.project.groupId", project.getGroupId());
+        resource.put("maven.project.artifactId", project.getArtifactId());
+        resource.put("maven.project.version", project.getVersion());
+        String goal = mojoExecution != null ? mojoExecution.getGoal() : "jmod";
+        timer.attribute("maven.goal", goal);
+        timer.attribute("maven.execution.id", mojoExecution != null ? mojoExecution.getExecutionId() : "default");
+        try {
+            new OtlpTraceExporter(StringUtils.isNotEmpty(traceEndpoint) ? traceEndpoint : null, traceFile)
+                    .export(session, "jmod:" + goal, timer, resource, success);
+        } catch (IOException e) {
+            getLog().warn("Unable to export the trace spans: " + e.getMessage());
+        }
+    }
+
+    private void reportTimings(boolean success) {
+        String goal = mojoExecution != null ? mojoExecution.getGoal() : "jmod";
+        String executionId = mojoExecution != null ? mojoExecution.getExecutionId() : "default";
+        logTimings("jmod:" + goal + " took " + timer.summary());
+        if (project == null || project.getFile() == null) {
+            // a goal like apply-delta without a project, there is no build directory to write to
+            return;
+        }
+
+        String projectId = project.getGroupId() + ':' + project.getArtifactId() + ':' + project.getVersion();
+        File file = new File(timingsDirectory, goal + '-' + executionId + ".json");
+        try {
+            try (JsonWriter json = JsonWriter.create(file)) {
+                json.beginObject();
+                json.property("project", projectId);
+                json.property("goal", goal);
+                json.property("executionId", executionId);
+                json.property("success", success);
+                json.property("startTime", timer.getStartMillis());
+                json.property("totalMillis", PhaseTimer.toMillis(timer.getElapsedNanos()));
+                json.name("phases");
+                timer.writePhases(json);
+                json.endObject();
+            }
+
+            MavenProject topLevelProject = session.getTopLevelProject() != null
+                            && session.getTopLevelProject().getFile() != null
+                    ? session.getTopLevelProject()
+                    : project;
+            File reactorFile = new File(topLevelProject.getBuild().getDirectory(), "jmod-timings/reactor.json");
+            ReactorTimings.add(session, reactorFile, projectId, goal, success, timer.getElapsedNanos());
+        } catch (IOException e) {
+            getLog().warn("Unable to write the timings to " + file.getAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Log the one line summary of the timings.
+     *
+     * @param summary for example <code>jmod:create took 1234 ms (toolchain 5 ms, ...)</code>
+     */
+    protected void logTimings(String summary) {
+        getLog().info(summary);
+    }
+
     // TODO: Check how to prevent code duplication in maven-jlink, maven-jmod and maven-jdeps plugin?
     protected String getJModExecutable() throws IOException {
-        Toolchain tc = getToolchain();
+        return getJModExecutable(getToolchain());
+    }
 
+    /**
+     * @param tc the toolchain, can be <code>null</code> to use the JDK Maven runs with or <code>JAVA_HOME</code>
+     * @return the <code>jmod</code> executable of the toolchain
+     */
+    protected String getJModExecutable(Toolchain tc) throws IOException {
         String jModExecutable = null;
         if (tc != null) {
             jModExecutable = tc.findTool("jmod");
@@ -142,15 +332,48 @@ public abstract class AbstractJModMojo extends AbstractMojo {
     }
 
     protected void executeCommand(Commandline cmd, File outputDirectory) throws MojoExecutionException {
-        if (getLog().isDebugEnabled()) {
-            // no quoted arguments ???
-            getLog().debug(CommandLineUtils.toString(cmd.getCommandline()).replaceAll("'", ""));
-        }
+        JModCdsArchive cdsArchive = getCdsArchive(cmd);
 
         CommandLineUtils.StringStreamConsumer err = new CommandLineUtils.StringStreamConsumer();
         CommandLineUtils.StringStreamConsumer out = new CommandLineUtils.StringStreamConsumer();
         try {
-            int exitCode = CommandLineUtils.executeCommandLine(cmd, out, err);
+            // the command line of the caller is left as it is, it may be executed again or be part of a fingerprint
+            final Commandline command = withJvmArgs(cmd, cdsArchive);
+
+            if (getLog().isDebugEnabled()) {
+                // no quoted arguments ???
+                getLog().debug(CommandLineUtils.toString(command.getCommandline())
+                        .replaceAll("'", ""));
+            }
+
+            // CommandLineUtils only calls execute(), which gives us the process to sample
+            final ProcessMetrics[] metrics = new ProcessMetrics[1];
+            Commandline monitored = new Commandline() {
+                @Override
+                public Process execute() throws CommandLineException {
+                    Process process = command.execute();
+                    metrics[0] = ProcessMetrics.start(process);
+                    return process;
+                }
+            };
+
+            Object event = FlightRecorderEvents.SUBPROCESS.begin();
+            int exitCode = CommandLineUtils.executeCommandLine(monitored, out, err);
+            if (metrics[0] != null) {
+                metrics[0].stop();
+                reportProcessMetrics(metrics[0]);
+            }
+            publishCdsArchive(cdsArchive, exitCode == 0);
+            long outputSize = out.getOutput().length();
+            FlightRecorderEvents.SUBPROCESS.commit(
+                    event,
+                    literalExecutable(command),
+                    CommandLineUtils.toString(command.getCommandline()),
+                    exitCode,
+                    outputSize,
+                    metrics[0] != null ? metrics[0].getUserCpuNanos() : -1L,
+                    metrics[0] != null ? metrics[0].getSystemCpuNanos() : -1L,
+                    metrics[0] != null ? metrics[0].getPeakRssBytes() : -1L);
 
             String output = (StringUtils.isEmpty(out.getOutput())
                     ? null
@@ -168,7 +391,7 @@ public abstract class AbstractJModMojo extends AbstractMojo {
                     msg.append(" - ").append(err.getOutput());
                 }
                 msg.append('\n');
-                msg.append("Command line was: ").append(cmd).append('\n').append('\n');
+                msg.append("Command line was: ").append(command).append('\n').append('\n');
 
                 throw new MojoExecutionException(msg.toString());
             }
@@ -184,6 +407,86 @@ public abstract class AbstractJModMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * @return the AppCDS archive to use, can be <code>null</code>
+     */
+    private JModCdsArchive getCdsArchive(Commandline cmd) {
+        if (!appCds) {
+            return null;
+        }
+        try {
+            String executable = literalExecutable(cmd);
+            JModCdsArchive cdsArchive = JModCdsArchive.of(appCdsDirectory, executable);
+            if (cdsArchive == null) {
+                getLog().debug("The JDK of " + executable + " does not support dynamic AppCDS archives.");
+            }
+            return cdsArchive;
+        } catch (IOException | CommandLineException e) {
+            getLog().warn("Unable to use an AppCDS archive for jmod: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return a copy of the command line with the JVM options in front of the arguments of the tool
+     */
+    private Commandline withJvmArgs(Commandline cmd, JModCdsArchive cdsArchive) throws CommandLineException {
+        Commandline command = new Commandline();
+        command.setExecutable(literalExecutable(cmd));
+        if (cmd.getWorkingDirectory() != null) {
+            command.setWorkingDirectory(cmd.getWorkingDirectory());
+        }
+        if (jmodJvmArgs != null) {
+            for (String jvmArg : jmodJvmArgs) {
+                command.createArg().setValue("-J" + jvmArg);
+            }
+        }
+        if (cdsArchive != null) {
+            for (String jvmArg : cdsArchive.getJvmArgs()) {
+                command.createArg().setValue("-J" + jvmArg);
+            }
+        }
+        command.addArguments(cmd.getArguments());
+        return command;
+    }
+
+    /**
+     * @return the executable without the quotes for the shell
+     */
+    private static String literalExecutable(Commandline cmd) throws CommandLineException {
+        return CommandLineUtils.translateCommandline(cmd.getExecutable())[0];
+    }
+
+    private void publishCdsArchive(JModCdsArchive cdsArchive, boolean success) {
+        if (cdsArchive == null || !cdsArchive.isCreating()) {
+            return;
+        }
+        try {
+            if (cdsArchive.publish(success)) {
+                getLog().info("Created the AppCDS archive "
+                        + cdsArchive.getArchive().getAbsolutePath() + " for jmod");
+            }
+        } catch (IOException e) {
+            getLog().warn("Unable to create the AppCDS archive for jmod: " + e.getMessage());
+        }
+    }
+
+    private void reportProcessMetrics(ProcessMetrics metrics) {
+        getLog().debug("jmod process " + metrics.getPid() + ": " + metrics.summary());
+        attribute("process.pid", metrics.getPid());
+        attribute("process.wallMillis", PhaseTimer.toMillis(metrics.getWallNanos()));
+        if (metrics.getTotalCpuNanos() >= 0) {
+            attribute("process.cpuMillis", PhaseTimer.toMillis(metrics.getTotalCpuNanos()));
+        }
+        if (metrics.getUserCpuNanos() >= 0) {
+            attribute("process.userCpuMillis", PhaseTimer.toMillis(metrics.getUserCpuNanos()));
+            attribute("process.systemCpuMillis", PhaseTimer.toMillis(metrics.getSystemCpuNanos()));
+        }
+        if (metrics.getPeakRssBytes() >= 0) {
+            attribute("process.peakRssBytes", metrics.getPeakRssBytes());
+        }
+    }
+
     /**
      * Convert a list into a.
      *
@@ -205,30 +508,7 @@ public abstract class AbstractJModMojo extends AbstractMojo {
         Toolchain tc = null;
 
         if (jdkToolchain != null) {
-            // Maven 3.3.1 has plugin execution scoped Toolchain Support
-            try {
-                Method getToolchainsMethod = toolchainManager
-                        .getClass()
-                        .getMethod("getToolchains", MavenSession.class, String.class, Map.class);
-
-                @SuppressWarnings("unchecked")
-                List<Toolchain> tcs =
-                        (List<Toolchain>) getToolchainsMethod.invoke(toolchainManager, session, "jdk", jdkToolchain);
-
-                if (tcs != null && tcs.size() > 0) {
-                    tc = tcs.get(0);
-                }
-            } catch (NoSuchMethodException e) {
-                // ignore
-            } catch (SecurityException e) {
-                // ignore
-            } catch (IllegalAccessException e) {
-                // ignore
-            } catch (IllegalArgumentException e) {
-                // ignore
-            } catch (InvocationTargetException e) {
-                // ignore
-            }
+            tc = getToolchain(jdkToolchain);
         }
 
         if (tc == null) {
@@ -239,6 +519,41 @@ public abstract class AbstractJModMojo extends AbstractMojo {
         return tc;
     }
 
+    /**
+     * @param requirements the requirements of the JDK toolchain, for example <code>version</code> and
+     *            <code>vendor</code>
+     * @return the first JDK toolchain which matches the requirements, or <code>null</code> if there is none
+     */
+    protected Toolchain getToolchain(Map<String, String> requirements) {
+        Toolchain tc = null;
+
+        // Maven 3.3.1 has plugin execution scoped Toolchain Support
+        try {
+            Method getToolchainsMethod =
+                    toolchainManager.getClass().getMethod("getToolchains", MavenSession.class, String.class, Map.class);
+
+            @SuppressWarnings("unchecked")
+            List<Toolchain> tcs =
+                    (List<Toolchain>) getToolchainsMethod.invoke(toolchainManager, session, "jdk", requirements);
+
+            if (tcs != null && tcs.size() > 0) {
+                tc = tcs.get(0);
+            }
+        } catch (NoSuchMethodException e) {
+            // ignore
+        } catch (SecurityException e) {
+            // ignore
+        } catch (IllegalAccessException e) {
+            // ignore
+        } catch (IllegalArgumentException e) {
+            // ignore
+        } catch (InvocationTargetException e) {
+            // ignore
+        }
+
+        return tc;
+    }
+
     public MavenProject getProject() {
         return project;
     }
@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * A jar with an <code>Automatic-Module-Name</code> and the explicit module descriptor which makes it a module the
+ * <code>jmod</code> tool accepts. An automatic module reads every other module, exports and opens all its packages,
+ * provides the services of <code>META-INF/services</code> and may use every service. The explicit descriptor comes
+ * close to that: it is an open module which exports all packages, provides the services, requires the modules of the
+ * packages its classes refer to, which are taken from the constant pools of the classes, and uses the services which
+ * are loaded via <code>ServiceLoader.load(Service.class, ...)</code>.
+ * <p>
+ * Services whose class is not a constant at the call of <code>ServiceLoader.load</code> can not be found that way,
+ * loading them fails at run time.
+ * </p>
+ */
+final class AutomaticModule {
+
+    static final String AUTOMATIC_MODULE_NAME = "Automatic-Module-Name";
+
+    private static final String SERVICES = "META-INF/services/";
+
+    private static final int CONSTANT_UTF8 = 1;
+
+    private static final int CONSTANT_CLASS = 7;
+
+    /**
+     * A class in a descriptor or a signature.
+     */
+    private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L([\\p{javaJavaIdentifierPart}/$]+)[;<]");
+
+    private final String name;
+
+    private final Set<String> packages = new TreeSet<>();
+
+    private final Set<String> referencedPackages = new TreeSet<>();
+
+    private final Set<String> uses = new TreeSet<>();
+
+    private final Map<String, Set<String>> services = new TreeMap<>();
+
+    private AutomaticModule(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param jar the jar
+     * @return the name of the automatic module, or <code>null</code> if the manifest does not define one
+     */
+    static String getAutomaticModuleName(JarFile jar) throws IOException {
+        Manifest manifest = jar.getManifest();
+        return manifest != null ? manifest.getMainAttributes().getValue(AUTOMATIC_MODULE_NAME) : null;
+    }
+
+    /**
+     * Read the packages, the services and the packages the classes refer to.
+     *
+     * @param file the jar file
+     * @param name the name of the module
+     * @return the module
+     * @throws IOException in case the jar can not be read
+     */
+    static AutomaticModule read(File file, String name) throws IOException {
+        AutomaticModule module = new AutomaticModule(name);
+        try (JarFile jar = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (entryName.startsWith(SERVICES) && entryName.indexOf('/', SERVICES.length()) < 0) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        module.readServices(entryName.substring(SERVICES.length()), in);
+                    }
+                    continue;
+                }
+                String pkg = packageOf(entryName);
+                if (pkg == null) {
+                    continue;
+                }
+                module.packages.add(pkg);
+                if (entryName.endsWith(".class")) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        ClassReader reader = new ClassReader(in);
+                        module.readReferences(reader);
+                        reader.accept(
+                                module.new ServiceLoaderCalls(), ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+                    } catch (RuntimeException e) {
+                        throw new IOException("Unable to read " + entryName + " of " + file + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        module.referencedPackages.removeAll(module.packages);
+        // the services must be provided by the module itself
+        for (Set<String> providers : module.services.values()) {
+            for (String provider : new TreeSet<>(providers)) {
+                if (!module.packages.contains(packageOf(provider.replace('.', '/') + ".class"))) {
+                    providers.remove(provider);
+                }
+            }
+        }
+        return module;
+    }
+
+    /**
+     * The classes a class refers to are in its constant pool: the class constants and the descriptors and signatures,
+     * which are UTF-8 constants. String constants which look like descriptors can add packages as well, which is only
+     * harmful if such a package belongs to another module.
+     */
+    private void readReferences(ClassReader reader) {
+        char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            if (offset == 0) {
+                // the second slot of a long or double constant
+                continue;
+            }
+            int tag = reader.readByte(offset - 1);
+            if (tag == CONSTANT_CLASS) {
+                addReference(reader.readUTF8(offset, buffer));
+            } else if (tag == CONSTANT_UTF8) {
+                Matcher matcher = DESCRIPTOR_CLASS.matcher(readUtf8Constant(reader, offset, buffer));
+                while (matcher.find()) {
+                    addReference(matcher.group(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param offset the offset of the length of the modified UTF-8 string
+     */
+    private static String readUtf8Constant(ClassReader reader, int offset, char[] buffer) {
+        int end = offset + 2 + reader.readUnsignedShort(offset);
+        int length = 0;
+        for (int i = offset + 2; i < end; ) {
+            int c = reader.readByte(i++);
+            if ((c & 0x80) == 0) {
+                buffer[length++] = (char) c;
+            } else if ((c & 0xE0) == 0xC0) {
+                buffer[length++] = (char) (((c & 0x1F) << 6) | (reader.readByte(i++) & 0x3F));
+            } else {
+                buffer[length++] = (char)
+                        (((c & 0xF) << 12) | ((reader.readByte(i++) & 0x3F) << 6) | (reader.readByte(i++) & 0x3F));
+            }
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private void addReference(String internalName) {
+        int start = internalName.lastIndexOf('[') + 1;
+        if (start > 0) {
+            // an array class: [Ljava/lang/String;
+            if (internalName.charAt(start) != 'L') {
+                return;
+            }
+            start++;
+        }
+        int end = internalName.lastIndexOf('/');
+        if (end > start) {
+            referencedPackages.add(internalName.substring(start, end).replace('/', '.'));
+        }
+    }
+
+    /**
+     * Finds the services which are loaded with a class constant, <code>ServiceLoader.load(Service.class)</code> is
+     * compiled to an <code>ldc</code> of the class followed by the call, maybe with the class loader or the layer in
+     * between.
+     */
+    private final class ServiceLoaderCalls extends ClassVisitor {
+        ServiceLoaderCalls() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(
+                int access, String name, String descriptor, String signature, String[] exceptions) {
+            return new MethodVisitor(Opcodes.ASM9) {
+                private String service;
+
+                @Override
+                public void visitLdcInsn(Object value) {
+                    service = value instanceof Type && ((Type) value).getSort() == Type.OBJECT
+                            ? ((Type) value).getClassName()
+                            : null;
+                }
+
+                @Override
+                public void visitMethodInsn(
+                        int opcode, String owner, String name, String descriptor, boolean isInterface) {
+                    if (service != null
+                            && opcode == Opcodes.INVOKESTATIC
+                            && "java/util/ServiceLoader".equals(owner)
+                            && ("load".equals(name) || "loadInstalled".equals(name))) {
+                        uses.add(service);
+                    }
+                    if (!"getClassLoader".equals(name) && !"getContextClassLoader".equals(name)) {
+                        service = null;
+                    }
+                }
+
+                @Override
+                public void visitInsn(int opcode) {
+                    if (opcode != Opcodes.ACONST_NULL) {
+                        service = null;
+                    }
+                }
+
+                @Override
+                public void visitVarInsn(int opcode, int varIndex) {
+                    // the class loader or the layer
+                    if (opcode != Opcodes.ALOAD) {
+                        service = null;
+                    }
+                }
+
+                @Override
+                public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                    if (opcode != Opcodes.GETSTATIC) {
+                        service = null;
+                    }
+                }
+
+                @Override
+                public void visitTypeInsn(int opcode, String type) {
+                    service = null;
+                }
+
+                @Override
+                public void visitJumpInsn(int opcode, Label label) {
+                    service = null;
+                }
+            };
+        }
+    }
+
+    private void readServices(String service, InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int comment = line.indexOf('#');
+            String provider = (comment < 0 ? line : line.substring(0, comment)).trim();
+            if (!provider.isEmpty()) {
+                Set<String> providers = services.get(service);
+                if (providers == null) {
+                    providers = new TreeSet<>();
+                    services.put(service, providers);
+                }
+                providers.add(provider);
+            }
+        }
+    }
+
+    /**
+     * @return the package of the entry, or <code>null</code> if the entry is not in a package: in the root, in
+     *         <code>META-INF</code> or in a directory whose name is not a Java identifier
+     */
+    static String packageOf(String entryName) {
+        int index = entryName.lastIndexOf('/');
+        if (index <= 0 || entryName.startsWith("META-INF/")) {
+            return null;
+        }
+        String pkg = entryName.substring(0, index);
+        for (String segment : pkg.split("/")) {
+            if (segment.isEmpty() || !Character.isJavaIdentifierStart(segment.charAt(0))) {
+                return null;
+            }
+            for (int i = 1; i < segment.length(); i++) {
+                if (!Character.isJavaIdentifierPart(segment.charAt(i))) {
+                    return null;
+                }
+            }
+        }
+        return pkg.replace('/', '.');
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return the packages of the module
+     */
+    Set<String> getPackages() {
+        return packages;
+    }
+
+    /**
+     * @return the packages outside of the module the classes refer to
+     */
+    Set<String> getReferencedPackages() {
+        return referencedPackages;
+    }
+
+    /**
+     * @param modules the modules of the known packages: the other dependencies and the JDK
+     * @return the modules which are required, without <code>java.base</code>
+     */
+    Set<String> getRequires(Map<String, String> modules) {
+        Set<String> requires = new TreeSet<>();
+        for (String pkg : referencedPackages) {
+            String module = modules.get(pkg);
+            if (module != null && !module.equals(name) && !"java.base".equals(module)) {
+                requires.add(module);
+            }
+        }
+        return requires;
+    }
+
+    /**
+     * @param requires the required modules, see {@link #getRequires(Map)}
+     * @param version the version of the module, can be <code>null</code>
+     * @return the content of the <code>module-info.class</code>
+     */
+    byte[] toModuleInfo(Set<String> requires, String version) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V9, Opcodes.ACC_MODULE, "module-info", null, null, null);
+        ModuleVisitor module = writer.visitModule(name, Opcodes.ACC_OPEN, version);
+        module.visitRequire("java.base", Opcodes.ACC_MANDATED, null);
+        for (String require : requires) {
+            module.visitRequire(require, 0, null);
+        }
+        for (String pkg : packages) {
+            module.visitPackage(pkg.replace('.', '/'));
+            module.visitExport(pkg.replace('.', '/'), 0);
+        }
+        for (String service : uses) {
+            module.visitUse(service.replace('.', '/'));
+        }
+        for (Map.Entry<String, Set<String>> service : services.entrySet()) {
+            if (service.getValue().isEmpty()) {
+                continue;
+            }
+            String[] providers = new String[service.getValue().size()];
+            int i = 0;
+            for (String provider : service.getValue()) {
+                providers[i++] = provider.replace('.', '/');
+            }
+            module.visitProvide(service.getKey().replace('.', '/'), providers);
+        }
+        module.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Java Flight Recorder events of the plugin, so a recording of the build shows which modules and entries the time is
+ * spent on. The plugin is built for Java 8, so the events are defined at runtime via
+ * <code>jdk.jfr.EventFactory</code>. If the API is not available, or the event is not enabled in the current
+ * recordings, {@link Type#begin()} returns <code>null</code> and nothing is recorded.
+ */
+final class FlightRecorderEvents {
+
+    private static final String PREFIX = "org.apache.maven.plugins.jmod.";
+
+    private static final String[] CATEGORY = {"Maven", "jmod"};
+
+    /**
+     * An execution of the <code>jmod</code> tool.
+     */
+    static final Type SUBPROCESS = new Type(
+            "Subprocess",
+            "jmod Subprocess",
+            "An execution of the jmod tool",
+            string("executable", "Executable"),
+            string("command", "Command"),
+            integer("exitCode", "Exit Code"),
+            bytes("outputSize", "Output Size"),
+            nanos("userCpuTime", "User CPU Time"),
+            nanos("systemCpuTime", "System CPU Time"),
+            bytes("peakRss", "Peak RSS"));
+
+    /**
+     * The resolution of the class and module path of the project.
+     */
+    static final Type RESOLVE_PATHS = new Type(
+            "ResolvePaths",
+            "jmod Resolve Paths",
+            "The resolution of the class path and module path",
+            string("project", "Project"),
+            integer("dependencies", "Dependencies"),
+            integer("classPathElements", "Class Path Elements"),
+            integer("modulePathElements", "Module Path Elements"));
+
+    /**
+     * A module descriptor which has been read.
+     */
+    static final Type MODULE_DESCRIPTOR = new Type(
+            "ModuleDescriptor",
+            "jmod Module Descriptor",
+            "A module descriptor which has been read",
+            string("module", "Module"),
+            string("source", "Source"),
+            bytes("size", "Size"));
+
+    /**
+     * An entry of a jmod file which has been written.
+     */
+    static final Type ENTRY_WRITTEN = new Type(
+            "EntryWritten",
+            "jmod Entry Written",
+            "An entry of a jmod file which has been written",
+            string("entry", "Entry"),
+            string("section", "Section"),
+            bytes("size", "Size"),
+            bytes("compressedSize", "Compressed Size"));
+
+    private FlightRecorderEvents() {}
+
+    private static Field string(String name, String label) {
+        return new Field(String.class, name, label, null, null);
+    }
+
+    private static Field integer(String name, String label) {
+        return new Field(int.class, name, label, null, null);
+    }
+
+    private static Field bytes(String name, String label) {
+        return new Field(long.class, name, label, "jdk.jfr.DataAmount", "BYTES");
+    }
+
+    private static Field nanos(String name, String label) {
+        return new Field(long.class, name, label, "jdk.jfr.Timespan", "NANOSECONDS");
+    }
+
+    /**
+     * A field of an event type.
+     */
+    private static final class Field {
+        private final Class<?> type;
+
+        private final String name;
+
+        private final String label;
+
+        /**
+         * The content type annotation of the field, for example <code>jdk.jfr.DataAmount</code>.
+         */
+        private final String contentType;
+
+        private final String unit;
+
+        Field(Class<?> type, String name, String label, String contentType, String unit) {
+            this.type = type;
+            this.name = name;
+            this.label = label;
+            this.contentType = contentType;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * An event type. Events are used like <code>jdk.jfr.Event</code>: begin the event before the work and commit it
+     * with the values of its fields afterwards.
+     */
+    static final class Type {
+        private final Object factory;
+
+        private final Object eventType;
+
+        private final int fields;
+
+        Type(String name, String label, String description, Field... fields) {
+            this.fields = fields.length;
+            Object createdFactory = null;
+            Object createdEventType = null;
+            if (Jfr.AVAILABLE) {
+                try {
+                    createdFactory = Jfr.createFactory(PREFIX + name, label, description, fields);
+                    createdEventType = Jfr.getEventType.invoke(createdFactory);
+                } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                    createdFactory = null;
+                }
+            }
+            this.factory = createdFactory;
+            this.eventType = createdEventType;
+        }
+
+        /**
+         * @return whether the event is recorded by a running recording
+         */
+        boolean isEnabled() {
+            if (factory == null) {
+                return false;
+            }
+            try {
+                return (Boolean) Jfr.isEnabled.invoke(eventType);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * @return the begun event, or <code>null</code> if the event is not recorded
+         */
+        Object begin() {
+            if (!isEnabled()) {
+                return null;
+            }
+            try {
+                Object event = Jfr.newEvent.invoke(factory);
+                Jfr.begin.invoke(event);
+                return event;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Commit an event.
+         *
+         * @param event the event returned by {@link #begin()}, can be <code>null</code>
+         * @param values the values of the fields in the order of their definition
+         */
+        void commit(Object event, Object... values) {
+            if (event == null) {
+                return;
+            }
+            if (values.length != fields) {
+                throw new IllegalArgumentException("Expected " + fields + " values but got " + values.length);
+            }
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    Jfr.set.invoke(event, i, values[i]);
+                }
+                Jfr.commit.invoke(event);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // the recording must never break the build
+            }
+        }
+    }
+
+    /**
+     * The reflective access to <code>jdk.jfr</code>.
+     */
+    private static final class Jfr {
+        private static final boolean AVAILABLE;
+
+        private static Constructor<?> annotationElement;
+
+        private static Constructor<?> valueDescriptor;
+
+        private static Method create;
+
+        private static Method getEventType;
+
+        private static Method isEnabled;
+
+        private static Method newEvent;
+
+        private static Method begin;
+
+        private static Method set;
+
+        private static Method commit;
+
+        private static Class<?> nameAnnotation;
+
+        private static Class<?> labelAnnotation;
+
+        private static Class<?> descriptionAnnotation;
+
+        private static Class<?> categoryAnnotation;
+
+        static {
+            boolean available;
+            try {
+                annotationElement =
+                        Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+                Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+                valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+                Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+                create = eventFactory.getMethod("create", List.class, List.class);
+                getEventType = eventFactory.getMethod("getEventType");
+                isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+                newEvent = eventFactory.getMethod("newEvent");
+                Class<?> event = Class.forName("jdk.jfr.Event");
+                begin = event.getMethod("begin");
+                set = event.getMethod("set", int.class, Object.class);
+                commit = event.getMethod("commit");
+                nameAnnotation = Class.forName("jdk.jfr.Name");
+                labelAnnotation = Class.forName("jdk.jfr.Label");
+                descriptionAnnotation = Class.forName("jdk.jfr.Description");
+                categoryAnnotation = Class.forName("jdk.jfr.Category");
+                available = true;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                available = false;
+            }
+            AVAILABLE = available;
+        }
+
+        private Jfr() {}
+
+        static Object createFactory(String name, String label, String description, Field... fields)
+                throws ReflectiveOperationException {
+            List<Object> annotations = Arrays.asList(
+                    annotation(nameAnnotation, name),
+                    annotation(labelAnnotation, label),
+                    annotation(descriptionAnnotation, description),
+                    annotation(categoryAnnotation, CATEGORY));
+            List<Object> descriptors = new ArrayList<>(fields.length);
+            for (Field field : fields) {
+                List<Object> fieldAnnotations = new ArrayList<>();
+                fieldAnnotations.add(annotation(labelAnnotation, field.label));
+                if (field.contentType != null) {
+                    fieldAnnotations.add(annotation(Class.forName(field.contentType), field.unit));
+                }
+                descriptors.add(valueDescriptor.newInstance(field.type, field.name, fieldAnnotations));
+            }
+            return create.invoke(null, annotations, Collections.unmodifiableList(descriptors));
+        }
+
+        private static Object annotation(Class<?> type, Object value) throws ReflectiveOperationException {
+            return annotationElement.newInstance(type, value);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.toolchain.ToolchainManager;
+
+/**
+ * The <code>apply-delta</code> goal rebuilds a <code>jmod</code> file from the <code>jmod</code> file of the previous
+ * release and a delta created by the <code>delta</code> goal. The result is byte-identical to the <code>jmod</code>
+ * file the delta has been created from, which is verified via the SHA-256 hash recorded in the delta.
+ */
+@Mojo(
+        name = "apply-delta",
+        requiresDependencyResolution = ResolutionScope.NONE,
+        defaultPhase = LifecyclePhase.NONE,
+        requiresProject = false,
+        threadSafe = true)
+public class JModApplyDeltaMojo extends AbstractJModMojo {
+
+    /**
+     * The <code>jmod</code> file of the previous release the delta has been created for.
+     */
+    @Parameter(property = "jmod.delta.base", required = true)
+    private File baseJmodFile;
+
+    /**
+     * The delta file.
+     */
+    @Parameter(property = "jmod.delta.file", required = true)
+    private File deltaFile;
+
+    /**
+     * The <code>jmod</code> file which is written.
+     */
+    @Parameter(property = "jmod.delta.output", required = true)
+    private File outputFile;
+
+    @Inject
+    public JModApplyDeltaMojo(ToolchainManager toolchainManager) {
+        super(toolchainManager);
+    }
+
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        if (!baseJmodFile.isFile()) {
+            throw new MojoFailureException("Unable to find " + baseJmodFile.getAbsolutePath());
+        }
+        if (!deltaFile.isFile()) {
+            throw new MojoFailureException("Unable to find " + deltaFile.getAbsolutePath());
+        }
+
+        JModDelta delta;
+        phase("apply-delta");
+        try (JModOutputLock lock =
+                JModOutputLock.lock(outputFile.getAbsoluteFile().getParentFile(), getLog())) {
+            delta = JModDelta.apply(baseJmodFile, deltaFile, outputFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to apply " + deltaFile.getAbsolutePath() + " to " + baseJmodFile.getAbsolutePath() + ": "
+                            + e.getMessage(),
+                    e);
+        }
+
+        attribute("jmod.output.bytes", outputFile.length());
+
+        getLog().info("Created " + outputFile.getAbsolutePath() + " with "
+                + delta.getAdded().size() + " added, " + delta.getChanged().size() + " changed and "
+                + delta.getRemoved().size() + " removed entries.");
+    }
+}
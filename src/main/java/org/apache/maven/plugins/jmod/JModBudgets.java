@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Size and time budgets of the <code>create</code> goal. Sizes are given in bytes with an optional unit
+ * (<code>B</code>, <code>KB</code>, <code>MB</code>, <code>GB</code>, based on 1024), durations in milliseconds
+ * with an optional unit (<code>ms</code>, <code>s</code>, <code>m</code>, <code>h</code>).
+ */
+final class JModBudgets {
+
+    private static final Pattern SIZE = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*([kmg]?)b?");
+
+    private static final Pattern DURATION = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*(ms|s|m|h)?");
+
+    private final long maxJmodSize;
+
+    private final Map<String, Long> maxSectionSizes;
+
+    private final long maxPackagingMillis;
+
+    /**
+     * @param maxJmodSize the maximum size of the jmod file, can be <code>null</code>
+     * @param maxSectionSizes the maximum compressed size per section, can be <code>null</code>
+     * @param maxPackagingTime the maximum wall time of the goal, can be <code>null</code>
+     * @throws IllegalArgumentException if a value can not be parsed or a section is unknown
+     */
+    JModBudgets(String maxJmodSize, Map<String, String> maxSectionSizes, String maxPackagingTime) {
+        this.maxJmodSize = maxJmodSize == null ? -1 : parseSize("maxJmodSize", maxJmodSize);
+        this.maxSectionSizes = new LinkedHashMap<>();
+        if (maxSectionSizes != null) {
+            for (Map.Entry<String, String> entry : maxSectionSizes.entrySet()) {
+                if (!JModSizeReport.SECTIONS.contains(entry.getKey())) {
+                    throw new IllegalArgumentException("The parameter maxSectionSizes contains the unknown section '"
+                            + entry.getKey() + "'. Valid sections are " + JModSizeReport.SECTIONS + ".");
+                }
+                this.maxSectionSizes.put(
+                        entry.getKey(), parseSize("maxSectionSizes/" + entry.getKey(), entry.getValue()));
+            }
+        }
+        this.maxPackagingMillis = maxPackagingTime == null ? -1 : parseDuration(maxPackagingTime);
+    }
+
+    boolean hasSizeBudgets() {
+        return maxJmodSize >= 0 || !maxSectionSizes.isEmpty();
+    }
+
+    /**
+     * @param report the size report of the created jmod file
+     * @param packagingMillis the wall time of the goal
+     * @return a message for each exceeded budget
+     */
+    List<String> check(JModSizeReport report, long packagingMillis) {
+        List<String> exceeded = new ArrayList<>();
+        if (report != null) {
+            if (maxJmodSize >= 0 && report.getFileSize() > maxJmodSize) {
+                exceeded.add("The jmod file has " + report.getFileSize() + " bytes which exceeds the budget of "
+                        + maxJmodSize + " bytes (maxJmodSize) by " + (report.getFileSize() - maxJmodSize)
+                        + " bytes.");
+            }
+            for (Map.Entry<String, Long> budget : maxSectionSizes.entrySet()) {
+                JModSizeReport.Totals totals = report.getSections().get(budget.getKey());
+                long size = totals == null ? 0 : totals.getCompressedSize();
+                if (size > budget.getValue()) {
+                    exceeded.add("The section " + budget.getKey() + " has " + size
+                            + " compressed bytes which exceeds the budget of " + budget.getValue()
+                            + " bytes (maxSectionSizes/" + budget.getKey() + ") by " + (size - budget.getValue())
+                            + " bytes.");
+                }
+            }
+        }
+        if (maxPackagingMillis >= 0 && packagingMillis > maxPackagingMillis) {
+            exceeded.add("Packaging took " + packagingMillis + " ms which exceeds the budget of " + maxPackagingMillis
+                    + " ms (maxPackagingTime).");
+        }
+        return exceeded;
+    }
+
+    static long parseSize(String name, String value) {
+        Matcher matcher = SIZE.matcher(value.trim().toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("The parameter " + name + " does not contain a valid size: '" + value
+                    + "'. Valid values are for example 1048576, 512KB, 10MB or 1GB.");
+        }
+        double number = Double.parseDouble(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "k":
+                number *= 1024;
+                break;
+            case "m":
+                number *= 1024 * 1024;
+                break;
+            case "g":
+                number *= 1024 * 1024 * 1024;
+                break;
+            default:
+        }
+        return (long) number;
+    }
+
+    static long parseDuration(String value) {
+        Matcher matcher = DURATION.matcher(value.trim().toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("The parameter maxPackagingTime does not contain a valid duration: '"
+                    + value + "'. Valid values are for example 500ms, 30s or 2m.");
+        }
+        double number = Double.parseDouble(matcher.group(1));
+        String unit = matcher.group(2);
+        if ("s".equals(unit)) {
+            number *= 1000;
+        } else if ("m".equals(unit)) {
+            number *= 60 * 1000;
+        } else if ("h".equals(unit)) {
+            number *= 60 * 60 * 1000;
+        }
+        return (long) number;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A dynamic AppCDS archive of the <code>jmod</code> tool of a JDK. The first run creates the archive via
+ * <code>-XX:ArchiveClassesAtExit</code>, later runs map it via <code>-XX:SharedArchiveFile</code>, which saves
+ * loading and verifying the classes of the tool on every call. Archives are specific to a JDK build, so there is one
+ * archive per JDK in the cache directory. Dynamic archives require JDK 13 or later.
+ */
+final class JModCdsArchive {
+
+    private static final int MIN_FEATURE_VERSION = 13;
+
+    private final File archive;
+
+    private final File pending;
+
+    private JModCdsArchive(File archive) {
+        this.archive = archive;
+        this.pending = archive.isFile()
+                ? null
+                : new File(archive.getParentFile(), archive.getName() + '.' + UUID.randomUUID() + ".tmp");
+    }
+
+    /**
+     * @param cacheDirectory the directory the archives are kept in
+     * @param jmodExecutable the <code>jmod</code> executable, which determines the JDK
+     * @return the archive of the JDK, or <code>null</code> if the JDK does not support dynamic archives
+     * @throws IOException in case the JDK can not be identified or the cache directory can not be created
+     */
+    static JModCdsArchive of(File cacheDirectory, String jmodExecutable) throws IOException {
+        File javaHome =
+                new File(jmodExecutable).getAbsoluteFile().getParentFile().getParentFile();
+        byte[] release = JdkRelease.read(javaHome);
+        if (release == null || JdkRelease.featureVersion(release) < MIN_FEATURE_VERSION) {
+            return null;
+        }
+        if (!cacheDirectory.mkdirs() && !cacheDirectory.isDirectory()) {
+            throw new IOException("Unable to create directory " + cacheDirectory.getAbsolutePath());
+        }
+        return new JModCdsArchive(new File(cacheDirectory, "jmod-" + jdkId(javaHome, release) + ".jsa"));
+    }
+
+    /**
+     * The id of a JDK: its location and its release file, which contains the exact version.
+     */
+    private static String jdkId(File javaHome, byte[] release) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(javaHome.getCanonicalPath().getBytes(StandardCharsets.UTF_8));
+            digest.update(release);
+            byte[] hash = digest.digest();
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @return whether this run creates the archive
+     */
+    boolean isCreating() {
+        return pending != null;
+    }
+
+    File getArchive() {
+        return archive;
+    }
+
+    /**
+     * @return the options for the JVM of the tool, without the <code>-J</code> prefix
+     */
+    List<String> getJvmArgs() {
+        if (pending != null) {
+            // written to a temporary file first, so parallel builds never map a partially written archive
+            return Collections.singletonList("-XX:ArchiveClassesAtExit=" + pending.getAbsolutePath());
+        }
+        return Collections.singletonList("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+    }
+
+    /**
+     * Publish the archive which has been created by this run.
+     *
+     * @param success whether the tool has been successful
+     * @return whether the archive has been published
+     */
+    boolean publish(boolean success) throws IOException {
+        if (pending == null || !pending.isFile()) {
+            return false;
+        }
+        try {
+            if (!success || archive.isFile()) {
+                return false;
+            }
+            Files.move(pending.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(pending.toPath());
+        }
+    }
+}
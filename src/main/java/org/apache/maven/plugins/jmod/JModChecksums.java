@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The SHA-1, SHA-256 and SHA-512 digests of a <code>jmod</code> file, which are written next to it in the format of a
+ * Maven repository, for example <code>app.jmod.sha256</code>. The digests are updated with the bytes of the file
+ * while {@link JModWriter} writes them, so the file does not have to be read again to checksum it. The files of the
+ * <code>jmod</code> tool are {@link #read(File) read} once to checksum them.
+ */
+final class JModChecksums {
+
+    /**
+     * The algorithms and the extensions of the files of their digests.
+     */
+    private static final List<String> ALGORITHMS =
+            Collections.unmodifiableList(Arrays.asList("SHA-1", "SHA-256", "SHA-512"));
+
+    private static final List<String> EXTENSIONS =
+            Collections.unmodifiableList(Arrays.asList(".sha1", ".sha256", ".sha512"));
+
+    private final MessageDigest[] digests = new MessageDigest[ALGORITHMS.size()];
+
+    JModChecksums() throws IOException {
+        try {
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = MessageDigest.getInstance(ALGORITHMS.get(i));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Compute the digests of a file which has not been written by {@link JModWriter}.
+     *
+     * @param file the file to read
+     * @return the digests of the file
+     */
+    static JModChecksums read(File file) throws IOException {
+        JModChecksums checksums = new JModChecksums();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                checksums.update(buffer, 0, read);
+            }
+        }
+        return checksums;
+    }
+
+    void update(int b) {
+        for (MessageDigest digest : digests) {
+            digest.update((byte) b);
+        }
+    }
+
+    void update(byte[] b, int off, int len) {
+        for (MessageDigest digest : digests) {
+            digest.update(b, off, len);
+        }
+    }
+
+    /**
+     * Write the digests next to a file. The digests are complete afterwards, they can not be updated anymore.
+     *
+     * @param file the file of the digests, for example <code>app.jmod</code>
+     * @return the written files, for example <code>app.jmod.sha1</code>
+     */
+    List<File> write(File file) throws IOException {
+        List<File> files = new ArrayList<>(digests.length);
+        for (int i = 0; i < digests.length; i++) {
+            File checksumFile = new File(file.getParentFile(), file.getName() + EXTENSIONS.get(i));
+            Files.write(checksumFile.toPath(), hex(digests[i].digest()).getBytes(StandardCharsets.US_ASCII));
+            files.add(checksumFile);
+        }
+        return files;
+    }
+
+    /**
+     * Delete the digests of a previous build, which would not match the file anymore.
+     *
+     * @param file the file of the digests
+     */
+    static void delete(File file) throws IOException {
+        for (String extension : EXTENSIONS) {
+            Files.deleteIfExists(new File(file.getParentFile(), file.getName() + extension).toPath());
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
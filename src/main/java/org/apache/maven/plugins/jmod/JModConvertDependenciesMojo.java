@@ -0,0 +1,512 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.shared.utils.cli.Commandline;
+import org.apache.maven.toolchain.ToolchainManager;
+
+/**
+ * The <code>convert-dependencies</code> goal converts the modular runtime dependencies of the project into
+ * <code>jmod</code> files, so they can be linked by
+ * <a href="https://maven.apache.org/plugins/maven-jlink-plugin/">maven-jlink-plugin</a> together with the
+ * <code>jmod</code> files of the JDK. Modular are jars with a <code>module-info.class</code> and, unless
+ * {@link #convertAutomaticModules} is disabled, jars with an <code>Automatic-Module-Name</code> in their manifest,
+ * which get an explicit module descriptor. Other jars are skipped.
+ * <p>
+ * The conversions run in parallel and their results are kept in {@link #cacheDirectory} by the SHA-256 of the jar and
+ * of the <code>release</code> file of the JDK, so a dependency is converted once per JDK for all projects and builds on
+ * the machine. The <code>jmod</code> files are linked,
+ * or copied if links are not supported, into {@link #outputDirectory}.
+ * </p>
+ */
+@Mojo(
+        name = "convert-dependencies",
+        requiresDependencyResolution = ResolutionScope.RUNTIME,
+        defaultPhase = LifecyclePhase.PACKAGE,
+        requiresProject = true,
+        threadSafe = true)
+public class JModConvertDependenciesMojo extends AbstractJModMojo {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The directory the <code>jmod</code> files of the dependencies are written to. Other <code>jmod</code> files in
+     * this directory are deleted.
+     */
+    @Parameter(
+            defaultValue = "${project.build.directory}/dependency-jmods",
+            property = "jmod.convert.outputDirectory",
+            required = true)
+    private File outputDirectory;
+
+    /**
+     * The directory the converted dependencies are kept in, which can be shared by all builds on the machine.
+     */
+    @Parameter(
+            defaultValue = "${settings.localRepository}/.cache/maven-jmod-plugin",
+            property = "jmod.convert.cacheDirectory",
+            required = true)
+    private File cacheDirectory;
+
+    /**
+     * Convert jars with an <code>Automatic-Module-Name</code> as well. Their module descriptor is an open module which
+     * exports all its packages, provides the services of <code>META-INF/services</code>, uses the services it loads
+     * via <code>ServiceLoader</code> with a class constant and requires the modules of the packages its classes refer
+     * to, as far as these are dependencies or modules of the JDK.
+     */
+    @Parameter(defaultValue = "true", property = "jmod.convert.automaticModules")
+    private boolean convertAutomaticModules;
+
+    /**
+     * The number of conversions which run at the same time, <code>0</code> uses the number of processors.
+     */
+    @Parameter(defaultValue = "0", property = "jmod.convert.threads")
+    private int threads;
+
+    @Inject
+    public JModConvertDependenciesMojo(ToolchainManager toolchainManager) {
+        super(toolchainManager);
+    }
+
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        phase("toolchain");
+        final String jModExecutable;
+        try {
+            jModExecutable = getJModExecutable();
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to find jmod command: " + e.getMessage(), e);
+        }
+        final String jdkKey;
+        try {
+            jdkKey = jdkKey(jModExecutable);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to identify the JDK of " + jModExecutable + ": " + e.getMessage(), e);
+        }
+
+        phase("scan-dependencies");
+        List<ModularJar> jars = scanDependencies();
+        attribute("dependencies.modular", jars.size());
+
+        Map<String, String> modules = new HashMap<>();
+        for (ModularJar jar : jars) {
+            if (jar.automatic != null) {
+                phase("jdk-packages");
+                modules.putAll(jdkPackages(jModExecutable));
+                for (ModularJar other : jars) {
+                    for (String pkg : other.packages) {
+                        modules.put(pkg, other.name);
+                    }
+                }
+                break;
+            }
+        }
+
+        phase("convert");
+        List<Result> results = convert(jModExecutable, jdkKey, jars, modules);
+
+        phase("link-output");
+        int cached = 0;
+        try (JModOutputLock lock = JModOutputLock.lock(outputDirectory, getLog())) {
+            Set<String> names = new TreeSet<>();
+            for (Result result : results) {
+                File target = new File(outputDirectory, result.jmodFile.getName());
+                names.add(target.getName());
+                link(result.jmodFile, target);
+                if (result.fromCache) {
+                    cached++;
+                }
+            }
+            File[] files = outputDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(".jmod") && !names.contains(file.getName())) {
+                        getLog().debug("Deleting " + file.getName() + " which is no dependency anymore.");
+                        Files.delete(file.toPath());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to write the jmod files to " + outputDirectory + ": " + e.getMessage(), e);
+        }
+        attribute("dependencies.converted", results.size() - cached);
+        attribute("dependencies.cached", cached);
+        getLog().info("Converted " + (results.size() - cached) + " dependencies to jmod files, " + cached
+                + " from the cache in " + cacheDirectory + ".");
+    }
+
+    /**
+     * @return the modular dependencies, sorted by module name
+     */
+    private List<ModularJar> scanDependencies() throws MojoExecutionException, MojoFailureException {
+        Map<String, ModularJar> jars = new LinkedHashMap<>();
+        for (Artifact artifact : getProject().getArtifacts()) {
+            File file = artifact.getFile();
+            if (!Artifact.SCOPE_COMPILE.equals(artifact.getScope())
+                            && !Artifact.SCOPE_RUNTIME.equals(artifact.getScope())
+                    || file == null
+                    || !file.isFile()
+                    || !file.getName().endsWith(".jar")) {
+                continue;
+            }
+            ModularJar jar;
+            try {
+                jar = scan(artifact);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to read " + file + ": " + e.getMessage(), e);
+            }
+            if (jar == null) {
+                continue;
+            }
+            ModularJar other = jars.put(jar.name, jar);
+            if (other != null) {
+                throw new MojoFailureException(
+                        "The module " + jar.name + " is contained in " + other.artifact + " and in " + artifact + ".");
+            }
+        }
+        List<ModularJar> sorted = new ArrayList<>(jars.values());
+        Collections.sort(sorted, new Comparator<ModularJar>() {
+            @Override
+            public int compare(ModularJar o1, ModularJar o2) {
+                return o1.name.compareTo(o2.name);
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * @return the modular jar, or <code>null</code> if the dependency is no module which can be converted
+     */
+    private ModularJar scan(Artifact artifact) throws IOException {
+        File file = artifact.getFile();
+        String automaticName;
+        try (JarFile jarFile = new JarFile(file)) {
+            JarEntry moduleInfo = jarFile.getJarEntry(ModuleInfo.MODULE_INFO_CLASS);
+            if (moduleInfo != null) {
+                try (InputStream in = jarFile.getInputStream(moduleInfo)) {
+                    return new ModularJar(artifact, ModuleInfo.read(in).getName(), null, packages(jarFile));
+                }
+            }
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith("META-INF/versions/") && name.endsWith('/' + ModuleInfo.MODULE_INFO_CLASS)) {
+                    getLog().warn("Skipping " + artifact + ", the module descriptor " + name
+                            + " of a multi-release jar is not supported.");
+                    return null;
+                }
+            }
+            automaticName = AutomaticModule.getAutomaticModuleName(jarFile);
+            if (automaticName == null) {
+                getLog().debug("Skipping " + artifact + ", it is not a module.");
+                return null;
+            }
+            if (!convertAutomaticModules) {
+                getLog().debug("Skipping " + artifact + ", it is the automatic module " + automaticName + ".");
+                return null;
+            }
+        }
+        AutomaticModule module = AutomaticModule.read(file, automaticName);
+        return new ModularJar(artifact, module.getName(), module, module.getPackages());
+    }
+
+    private static Set<String> packages(JarFile jarFile) {
+        Set<String> packages = new TreeSet<>();
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry entry = entries.nextElement();
+            String pkg = entry.isDirectory() ? null : AutomaticModule.packageOf(entry.getName());
+            if (pkg != null) {
+                packages.add(pkg);
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * @return the modules of the packages of the JDK of the <code>jmod</code> tool, from the module descriptors of
+     *         its <code>jmods</code> directory
+     */
+    private Map<String, String> jdkPackages(String jModExecutable) throws MojoExecutionException {
+        File jmods = new File(
+                new File(jModExecutable).getAbsoluteFile().getParentFile().getParentFile(), "jmods");
+        File[] files = jmods.listFiles();
+        Map<String, String> modules = new HashMap<>();
+        if (files == null) {
+            getLog().warn("The JDK has no directory " + jmods
+                    + ", the automatic modules will not require modules of the JDK.");
+            return modules;
+        }
+        for (File file : files) {
+            if (!file.getName().endsWith(".jmod")) {
+                continue;
+            }
+            try (JModFile jmod = JModFile.open(file)) {
+                JModFile.Entry entry = jmod.getEntry("classes/" + ModuleInfo.MODULE_INFO_CLASS);
+                if (entry == null) {
+                    continue;
+                }
+                try (InputStream in = jmod.getInputStream(entry)) {
+                    ModuleInfo info = ModuleInfo.read(in);
+                    for (String pkg : info.getPackages()) {
+                        modules.put(pkg, info.getName());
+                    }
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to read " + file + ": " + e.getMessage(), e);
+            }
+        }
+        return modules;
+    }
+
+    private List<Result> convert(
+            final String jModExecutable, final String jdkKey, List<ModularJar> jars, final Map<String, String> modules)
+            throws MojoExecutionException {
+        int poolSize = Math.max(
+                1,
+                Math.min(
+                        jars.size(),
+                        threads > 0 ? threads : Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (final ModularJar jar : jars) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() throws Exception {
+                        return convert(jModExecutable, jdkKey, jar, modules);
+                    }
+                }));
+            }
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof MojoExecutionException) {
+                        throw (MojoExecutionException) cause;
+                    }
+                    throw new MojoExecutionException(
+                            "Unable to convert " + jars.get(i).artifact + ": " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while converting the dependencies", e);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the key of the JDK of the <code>jmod</code> tool in the cache, from its <code>release</code> file or, if
+     *         it has none, from the path of the tool
+     */
+    private static String jdkKey(String jModExecutable) throws IOException {
+        File executable = new File(jModExecutable).getAbsoluteFile();
+        byte[] release = JdkRelease.read(executable.getParentFile().getParentFile());
+        return sha256(release != null ? release : executable.getPath().getBytes(StandardCharsets.UTF_8))
+                .substring(0, 16);
+    }
+
+    /**
+     * Convert a jar unless its <code>jmod</code> file is in the cache already. The conversion happens in a temporary
+     * directory which is moved into the cache, so concurrent builds never see a partially written file.
+     */
+    private Result convert(String jModExecutable, String jdkKey, ModularJar jar, Map<String, String> modules)
+            throws IOException, MojoExecutionException {
+        File file = jar.artifact.getFile();
+        String key = sha256(file) + '-' + jdkKey;
+        byte[] descriptor = null;
+        if (jar.automatic != null) {
+            String version = jar.artifact.getBaseVersion();
+            descriptor = jar.automatic.toModuleInfo(
+                    jar.automatic.getRequires(modules),
+                    version != null && !version.isEmpty() && Character.isDigit(version.charAt(0)) ? version : null);
+            key += '-' + sha256(descriptor).substring(0, 16);
+        }
+        File entry = new File(cacheDirectory, key);
+        File jmodFile = new File(entry, jar.name + ".jmod");
+        if (jmodFile.isFile()) {
+            getLog().debug("Using " + jmodFile + " for " + jar.artifact);
+            return new Result(jmodFile, true);
+        }
+
+        if (!cacheDirectory.mkdirs() && !cacheDirectory.isDirectory()) {
+            throw new IOException("Unable to create directory " + cacheDirectory.getAbsolutePath());
+        }
+        File pending = new File(cacheDirectory, key + '.' + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectory(pending.toPath());
+            String classPath = file.getAbsolutePath();
+            if (descriptor != null) {
+                File descriptorDirectory = new File(pending, "descriptor");
+                Files.createDirectory(descriptorDirectory.toPath());
+                Files.write(new File(descriptorDirectory, ModuleInfo.MODULE_INFO_CLASS).toPath(), descriptor);
+                classPath = descriptorDirectory.getAbsolutePath() + File.pathSeparatorChar + classPath;
+            }
+
+            Commandline cmd = new Commandline();
+            cmd.setExecutable(jModExecutable);
+            cmd.createArg().setValue("create");
+            cmd.createArg().setValue("--class-path");
+            cmd.createArg().setValue(classPath);
+            cmd.createArg().setFile(new File(pending, jmodFile.getName()));
+            getLog().info("Converting " + jar.artifact + " into the module " + jar.name
+                    + (descriptor != null ? " (automatic module)" : ""));
+            executeCommand(cmd, pending);
+
+            if (descriptor != null) {
+                Directories.delete(new File(pending, "descriptor"));
+            }
+            try {
+                Files.move(pending.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // converted by a concurrent build in the meantime
+                getLog().debug("The cache entry " + entry + " has been created concurrently.");
+            }
+            return new Result(jmodFile, false);
+        } finally {
+            if (pending.exists()) {
+                Directories.delete(pending);
+            }
+        }
+    }
+
+    /**
+     * Link the <code>jmod</code> file of the cache, or copy it if the file system does not support links.
+     */
+    private static void link(File source, File target) throws IOException {
+        Files.deleteIfExists(target.toPath());
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    private static String sha256(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+            return hex(digest.digest());
+        }
+    }
+
+    private static String sha256(byte[] content) throws IOException {
+        return hex(sha256().digest(content));
+    }
+
+    private static MessageDigest sha256() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A dependency which is a named or an automatic module.
+     */
+    private static final class ModularJar {
+        private final Artifact artifact;
+
+        private final String name;
+
+        private final AutomaticModule automatic;
+
+        private final Set<String> packages;
+
+        ModularJar(Artifact artifact, String name, AutomaticModule automatic, Set<String> packages) {
+            this.artifact = artifact;
+            this.name = name;
+            this.automatic = automatic;
+            this.packages = packages;
+        }
+    }
+
+    /**
+     * The <code>jmod</code> file of a dependency in the cache.
+     */
+    private static final class Result {
+        private final File jmodFile;
+
+        private final boolean fromCache;
+
+        Result(File jmodFile, boolean fromCache) {
+            this.jmodFile = jmodFile;
+            this.fromCache = fromCache;
+        }
+    }
+}
@@ -21,15 +21,38 @@ package org.apache.maven.plugins.jmod;
 import javax.inject.Inject;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -37,6 +60,7 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
 import org.apache.maven.shared.utils.StringUtils;
 import org.apache.maven.shared.utils.cli.Commandline;
 import org.apache.maven.shared.utils.io.FileUtils;
@@ -62,7 +86,8 @@ import org.codehaus.plexus.languages.java.jpms.ResolvePathsResult;
         name = "create",
         requiresDependencyResolution = ResolutionScope.RUNTIME,
         defaultPhase = LifecyclePhase.PACKAGE,
-        requiresProject = true)
+        requiresProject = true,
+        threadSafe = true)
 // CHECKSTYLE_ON: LineLength
 public class JModCreateMojo extends AbstractJModMojo {
     private static final String JMODS = "jmods";
@@ -262,6 +287,26 @@ public class JModCreateMojo extends AbstractJModMojo {
     @Parameter
     private String targetPlatform;
 
+    /**
+     * A JDK archive of the {@link #targetPlatform}, a <code>tar.gz</code> or <code>zip</code> file as the JDK vendors
+     * publish them, whose <code>jmods</code> are put on the module path instead of those of the JDK of the toolchain.
+     * Only the <code>jmods</code> folder of the archive is extracted, once, into {@link #jdkArchiveCacheDirectory}.
+     * There is a single archive, for the <code>jmod</code> file of the project: the variants of the {@link #platforms}
+     * are derived from that file and have no archives of their own.
+     */
+    @Parameter(property = "jmod.jdkArchive")
+    private File jdkArchive;
+
+    /**
+     * The directory the <code>jmods</code> folder of the {@link #jdkArchive} is extracted to, by the SHA-256 of the
+     * archive, which can be shared by all builds on the machine.
+     */
+    @Parameter(
+            defaultValue = "${settings.localRepository}/.cache/maven-jmod-plugin",
+            property = "jmod.jdkArchiveCacheDirectory",
+            required = true)
+    private File jdkArchiveCacheDirectory;
+
     /**
      * Hint for a tool to issue a warning if the module is resolved. The valid values are:
      * <ul>
@@ -273,6 +318,179 @@ public class JModCreateMojo extends AbstractJModMojo {
     @Parameter
     private String warnIfResolved;
 
+    /**
+     * Write a report which breaks down the created jmod file by section, lists the largest entries and the bytes
+     * contributed by each element of the class path. The report is written as JSON into {@link #sizeReportFile} and a
+     * summary is logged.
+     */
+    @Parameter(defaultValue = "false", property = "jmod.sizeReport")
+    private boolean sizeReport;
+
+    /**
+     * The file the size report is written to.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/jmod-size-report.json", property = "jmod.sizeReportFile")
+    private File sizeReportFile;
+
+    /**
+     * The number of largest entries which are listed in the size report.
+     */
+    @Parameter(defaultValue = "10", property = "jmod.sizeReportTopEntries")
+    private int sizeReportTopEntries;
+
+    /**
+     * Write a manifest of the content of the created jmod file: every entry with its section, the input it has been
+     * taken from (a class path element or a directory of another section), its size and its SHA-256. The manifest is
+     * written as JSON into {@link #contentManifestFile}. The digests of a file which is updated incrementally are
+     * computed while it is written. For a file of the <code>jmod</code> tool they are computed from the inputs, so the
+     * jmod file itself is only read for the entries which the tool changes, like the <code>module-info.class</code>.
+     * The staged classes of {@link #stripDebug} are reported with the class path element they come from.
+     */
+    @Parameter(defaultValue = "false", property = "jmod.contentManifest")
+    private boolean contentManifest;
+
+    /**
+     * The file the content manifest is written to.
+     */
+    @Parameter(
+            defaultValue = "${project.build.directory}/jmod-content-manifest.json",
+            property = "jmod.contentManifestFile")
+    private File contentManifestFile;
+
+    /**
+     * Write the SHA-1, SHA-256 and SHA-512 checksums of the created jmod files next to them in the format of a Maven
+     * repository, for example <code>app.jmod.sha256</code>. The checksums are computed while the plugin writes a file
+     * itself, that is for the incremental updates and the {@link #platforms}. The files of the <code>jmod</code> tool,
+     * a full build and the {@link #jdkToolchains}, are read once more to checksum them. Maven does not reuse these
+     * files: it computes the checksums of the attached files again when it installs or deploys them. Checksums of an
+     * earlier build which do not match a file anymore are deleted.
+     */
+    @Parameter(defaultValue = "false", property = "jmod.checksums")
+    private boolean checksums;
+
+    /**
+     * The maximum size of the created jmod file, for example <code>10MB</code>. Units are <code>B</code>,
+     * <code>KB</code>, <code>MB</code> and <code>GB</code> (based on 1024), without a unit the value is in bytes.
+     */
+    @Parameter(property = "jmod.maxJmodSize")
+    private String maxJmodSize;
+
+    /**
+     * The maximum compressed size of each section of the created jmod file. The valid sections are
+     * <code>classes</code>, <code>conf</code>, <code>include</code>, <code>legal</code>, <code>lib</code>,
+     * <code>bin</code> and <code>man</code>.
+     *
+     * <pre>
+     * &lt;maxSectionSizes&gt;
+     *   &lt;lib&gt;50MB&lt;/lib&gt;
+     *   &lt;classes&gt;2MB&lt;/classes&gt;
+     * &lt;/maxSectionSizes&gt;
+     * </pre>
+     */
+    @Parameter
+    private Map<String, String> maxSectionSizes;
+
+    /**
+     * The maximum wall time of the <code>create</code> goal, for example <code>30s</code>. The time spent waiting for
+     * other executions which write into the same output directory is not counted. Units are <code>ms</code>,
+     * <code>s</code>, <code>m</code> and <code>h</code>, without a unit the value is in milliseconds.
+     */
+    @Parameter(property = "jmod.maxPackagingTime")
+    private String maxPackagingTime;
+
+    /**
+     * Fail the build if one of the budgets {@link #maxJmodSize}, {@link #maxSectionSizes} or
+     * {@link #maxPackagingTime} is exceeded. Otherwise only a warning is logged.
+     */
+    @Parameter(defaultValue = "true", property = "jmod.failOnBudgetExceeded")
+    private boolean failOnBudgetExceeded;
+
+    /**
+     * Update the existing jmod file instead of creating it from scratch: the inputs are compared with the entries of
+     * the previous file by name, size and CRC, the compressed data of unchanged entries is copied and only added and
+     * changed entries are compressed. The <code>jmod</code> tool is still used if there is no previous file, if the
+     * <code>module-info.class</code>, the packages of the module or the options have changed, if the class path
+     * contains jar files or if {@link #excludes} are configured.
+     */
+    @Parameter(defaultValue = "false", property = "jmod.incremental")
+    private boolean incremental;
+
+    /**
+     * Platform specific variants of the jmod file, which are attached with their classifier. Each variant has its own
+     * native libraries, native commands and target platform; the other sections are shared with the jmod file of the
+     * project, whose compressed entries are copied, so they are only compressed once. The variants are written
+     * concurrently.
+     *
+     * <pre>
+     * &lt;platforms&gt;
+     *   &lt;platform&gt;
+     *     &lt;classifier&gt;linux-x64&lt;/classifier&gt;
+     *     &lt;targetPlatform&gt;linux-amd64&lt;/targetPlatform&gt;
+     *     &lt;libs&gt;
+     *       &lt;lib&gt;src/main/libs-linux-x64&lt;/lib&gt;
+     *     &lt;/libs&gt;
+     *   &lt;/platform&gt;
+     *   &lt;platform&gt;
+     *     &lt;classifier&gt;linux-aarch64&lt;/classifier&gt;
+     *     ...
+     *   &lt;/platform&gt;
+     * &lt;/platforms&gt;
+     * </pre>
+     *
+     * See {@link Platform} for the values which are kept from the jmod file of the project.
+     */
+    @Parameter
+    private List<Platform> platforms;
+
+    /**
+     * Further JDK toolchains to create the jmod file with, each given by its requirements like the
+     * <code>jdkToolchain</code>. The jmod files are created concurrently with the <code>jmod</code> tool and the
+     * <code>jmods</code> of the JDK of the toolchain, and are attached with the classifier <code>jdk</code> followed
+     * by the feature version of the JDK, for example <code>jdk21</code>.
+     *
+     * <pre>
+     * &lt;jdkToolchains&gt;
+     *   &lt;jdkToolchain&gt;
+     *     &lt;version&gt;21&lt;/version&gt;
+     *   &lt;/jdkToolchain&gt;
+     *   &lt;jdkToolchain&gt;
+     *     &lt;version&gt;25&lt;/version&gt;
+     *     &lt;vendor&gt;temurin&lt;/vendor&gt;
+     *   &lt;/jdkToolchain&gt;
+     * &lt;/jdkToolchains&gt;
+     * </pre>
+     *
+     * Each requirement must be matched by a toolchain, and the JDKs must have different feature versions.
+     */
+    @Parameter
+    private List<Map<String, String>> jdkToolchains;
+
+    /**
+     * Remove the {@link #debugAttributes} from the class files of the project and of the class path, like
+     * <code>jlink --strip-debug</code> does for an image. The classes are staged without the attributes in
+     * <code>jmod-stripped</code> of the build directory, where they are kept until their source changes; the saved
+     * bytes are logged.
+     */
+    @Parameter(defaultValue = "false", property = "jmod.stripDebug")
+    private boolean stripDebug;
+
+    /**
+     * The debug attributes which are removed by {@link #stripDebug}: <code>LineNumberTable</code>,
+     * <code>LocalVariableTable</code> together with <code>LocalVariableTypeTable</code>, and <code>SourceFile</code>
+     * together with <code>SourceDebugExtension</code>. By default all of them.
+     */
+    @Parameter(property = "jmod.debugAttributes")
+    private List<String> debugAttributes;
+
+    /**
+     * Resolve the dependencies on other projects of the reactor to their compiled classes instead of their jar files,
+     * so the jmod file can be created without packaging them first, for example in an earlier phase. For a module the
+     * classes of a dependency are only used if they contain a <code>module-info.class</code>. By default the jar files
+     * are used, which can differ from the classes, for example by filtered resources or a shaded jar.
+     */
+    @Parameter(defaultValue = "false", property = "jmod.resolveReactorClasses")
+    private boolean resolveReactorClasses;
+
     @Parameter(defaultValue = "${project.build.outputDirectory}", required = true, readonly = true)
     private File targetClassesDirectory;
 
@@ -282,56 +500,827 @@ public class JModCreateMojo extends AbstractJModMojo {
     // calculated based on jmod(.exe)/../..
     private File javaHome;
 
+    // the jmods of the target platform: those of the javaHome or of the jdkArchive
+    private File jmodsDirectory;
+
+    private String jModExecutable;
+
+    // the jmod(.exe) of the jdkToolchains by their classifier
+    private Map<String, String> toolchainJModExecutables;
+
+    private JModBudgets budgets;
+
+    // the class path of the jmod tool if the debug attributes are stripped, mapped to the elements they come from
+    private Map<String, String> strippedClassPaths;
+
+    private final MavenProjectHelper projectHelper;
+
     @Inject
-    public JModCreateMojo(ToolchainManager toolchainManager, LocationManager locationManager) {
+    public JModCreateMojo(
+            ToolchainManager toolchainManager, LocationManager locationManager, MavenProjectHelper projectHelper) {
         super(toolchainManager);
         this.locationManager = locationManager;
+        this.projectHelper = projectHelper;
+    }
+
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        long start = System.nanoTime();
+        prepare();
+
+        // executions of a parallel build can write into the same directory
+        phase("lock-output");
+        File modsFolder = getResultingJModFile().getParentFile();
+        JModSizeReport report;
+        long locking = System.nanoTime();
+        try (JModOutputLock lock = JModOutputLock.lock(modsFolder, getLog())) {
+            // waiting for other executions does not count against the packaging time
+            start += System.nanoTime() - locking;
+            report = createJModFile();
+
+            phase("attach-artifact");
+            if (projectHasAlreadySetAnArtifact()) {
+                throw new MojoExecutionException("You have to use a classifier "
+                        + "to attach supplemental artifacts to the project instead of replacing them.");
+            }
+
+            getProject().getArtifact().setFile(getResultingJModFile());
+
+            if (platforms != null && !platforms.isEmpty()) {
+                phase("platforms");
+                createPlatformJModFiles();
+            }
+
+            if (!toolchainJModExecutables.isEmpty()) {
+                phase("toolchains");
+                createToolchainJModFiles();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to lock the output directory " + modsFolder.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+
+        phase("budgets");
+        checkBudgets(report, (System.nanoTime() - start) / 1_000_000L);
     }
 
-    public void execute() throws MojoExecutionException, MojoFailureException {
+    /**
+     * Look up the <code>jmod</code> tool, resolve the class and module path and validate the parameters. The result
+     * stays valid as long as the dependencies and the <code>module-info.class</code> do not change.
+     */
+    void prepare() throws MojoExecutionException, MojoFailureException {
+        phase("toolchain");
+        File jmodsFolderJDK;
         try {
-            String jModExecutable = getJModExecutable();
+            jModExecutable = getJModExecutable();
             File jModExecuteableFile = new File(jModExecutable);
             javaHome = jModExecuteableFile.getParentFile().getParentFile();
-            File jmodsFolderJDK = new File(javaHome, JMODS);
+            jmodsFolderJDK = new File(javaHome, JMODS);
             getLog().debug("Parent: " + javaHome.getAbsolutePath());
             getLog().debug("jmodsFolder: " + jmodsFolderJDK.getAbsolutePath());
 
-            if (!jmodsFolderJDK.exists()) {
+            if (jdkArchive == null && !jmodsFolderJDK.exists()) {
                 throw new IOException(
                         "JMODS folder does not exists. You might use a JDK which does not ship this anymore due to JEP 493 (Java 24). For more information also see: https://openjdk.org/jeps/493");
             }
+            toolchainJModExecutables =
+                    isAttaching() ? resolveToolchainJModExecutables() : Collections.<String, String>emptyMap();
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to find jmod command: " + e.getMessage(), e);
+        }
 
-            preparePaths();
+        phase("resolve-paths");
+        preparePaths();
+        attribute("jmod.classpath.size", classpathElements == null ? 0 : classpathElements.size());
+        attribute("jmod.modulepath.size", modulepathElements.size());
 
-            failIfParametersAreNotInTheirValidValueRanges();
+        phase("validate-parameters");
+        failIfParametersAreNotInTheirValidValueRanges();
 
-            getLog().debug("Toolchain in maven-jmod-plugin: jmod [ " + jModExecutable + " ]");
+        if (jdkArchive != null) {
+            phase("jdk-archive");
+            jmodsDirectory = extractJdkArchive();
+        } else {
+            jmodsDirectory = jmodsFolderJDK;
+        }
 
-            // We need to put the resulting x.jmod files into jmods folder otherwise is
-            // seemed to be not working.
-            // Check why?
-            File modsFolder = new File(outputDirectory, "jmods");
-            File resultingJModFile = new File(modsFolder, outputFileName + ".jmod");
+        getLog().debug("Toolchain in maven-jmod-plugin: jmod [ " + jModExecutable + " ]");
+    }
 
-            deleteOutputIfAlreadyExists(resultingJModFile);
+    /**
+     * Create the jmod file with the paths of the last {@link #prepare()} and write the size report if requested. The
+     * caller holds the {@link JModOutputLock} of the directory of the file.
+     *
+     * @return the size report, or <code>null</code> if neither the report nor size budgets are requested
+     */
+    JModSizeReport createJModFile() throws MojoExecutionException, MojoFailureException {
+        // We need to put the resulting x.jmod files into jmods folder otherwise is
+        // seemed to be not working.
+        // Check why?
+        File resultingJModFile = getResultingJModFile();
+
+        if (stripDebug) {
+            phase("strip-debug");
+            stripDebugAttributes();
+        }
 
-            // create the jmods folder...
-            modsFolder.mkdirs();
+        phase("command-line");
+        Commandline cmd = createJModCreateCommandLine(resultingJModFile, jmodsDirectory);
+        cmd.setExecutable(jModExecutable);
 
-            Commandline cmd = createJModCreateCommandLine(resultingJModFile);
-            cmd.setExecutable(jModExecutable);
+        if (isTracing()) {
+            scanInputSections();
+        }
+
+        String fingerprint = isIncremental() ? fingerprint(cmd) : null;
+        JModChecksums digests = newChecksums();
+        Map<String, String> entryDigests = contentManifest ? new HashMap<String, String>() : null;
+        if (fingerprint == null || !updateIncrementally(resultingJModFile, fingerprint, digests, entryDigests)) {
+            phase("delete-output");
+            deleteOutputIfAlreadyExists(resultingJModFile);
+            deleteIncrementalState();
 
+            phase("jmod");
+            attribute("jmod.arguments", cmd.getArguments().length);
             executeCommand(cmd, outputDirectory);
+            if (fingerprint != null) {
+                writeIncrementalState(resultingJModFile, fingerprint);
+            }
+            if (digests != null) {
+                phase("checksums");
+                digests = readChecksums(resultingJModFile);
+            }
+            // the content manifest has to read the inputs and the file of the tool
+            entryDigests = null;
+        }
+        writeChecksums(resultingJModFile, digests);
+        attribute("jmod.output.bytes", resultingJModFile.length());
 
-            if (projectHasAlreadySetAnArtifact()) {
-                throw new MojoExecutionException("You have to use a classifier "
-                        + "to attach supplemental artifacts to the project instead of replacing them.");
+        JModSizeReport report = null;
+        if (sizeReport || budgets.hasSizeBudgets()) {
+            phase("size-report");
+            try {
+                report = JModSizeReport.analyze(resultingJModFile, getClassPaths());
+            } catch (IOException e) {
+                throw new MojoExecutionException(
+                        "Unable to analyze the size of " + resultingJModFile.getAbsolutePath() + ": " + e.getMessage(),
+                        e);
             }
+        }
+        if (sizeReport) {
+            writeSizeReport(report);
+        }
+        if (contentManifest) {
+            phase("content-manifest");
+            writeContentManifest(resultingJModFile, entryDigests);
+        }
+        return report;
+    }
 
-            getProject().getArtifact().setFile(resultingJModFile);
+    /**
+     * @param entryDigests the SHA-256 of the entries by name if the plugin has written the file, otherwise
+     *            <code>null</code>
+     */
+    private void writeContentManifest(File jmodFile, Map<String, String> entryDigests) throws MojoExecutionException {
+        // the staged elements are reported as the elements they have been staged from
+        Map<String, String> classPath = new LinkedHashMap<>();
+        if (stripDebug) {
+            classPath.putAll(strippedClassPaths);
+        } else {
+            for (String element : getClassPaths()) {
+                classPath.put(element, element);
+            }
+        }
+        Map<String, List<String>> directories = new LinkedHashMap<>();
+        directories.put("conf", handleConfigurationListWithDefault(configs, DEFAULT_CONFIG_DIRECTORY));
+        directories.put("bin", handleConfigurationListWithDefault(cmds, DEFAULT_CMD_DIRECTORY));
+        directories.put("lib", handleConfigurationListWithDefault(libs, DEFAULT_LIB_DIRECTORY));
+        directories.put("include", handleConfigurationListWithDefault(headerFiles, DEFAULT_HEADER_FILES_DIRECTORY));
+        directories.put("legal", handleConfigurationListWithDefault(legalNotices, DEFAULT_LEGAL_NOTICES_DIRECTORY));
+        directories.put("man", handleConfigurationListWithDefault(manPages, DEFAULT_MAN_PAGES_DIRECTORY));
+        JModManifest manifest;
+        try {
+            manifest = JModManifest.create(jmodFile, classPath, directories, entryDigests);
+            manifest.write(contentManifestFile);
         } catch (IOException e) {
-            throw new MojoFailureException("Unable to find jmod command: " + e.getMessage(), e);
+            throw new MojoExecutionException(
+                    "Unable to write the content manifest " + contentManifestFile.getAbsolutePath() + ": "
+                            + e.getMessage(),
+                    e);
+        }
+        attribute("jmod.contentManifest.entries", manifest.getEntries());
+        attribute("jmod.contentManifest.readFromJmod", manifest.getReadFromJmod());
+        getLog().info("The content manifest of " + manifest.getEntries() + " entries has been written to "
+                + contentManifestFile.getAbsolutePath());
+    }
+
+    /**
+     * Stage the class path without the {@link #debugAttributes} for the <code>jmod</code> tool.
+     */
+    private void stripDebugAttributes() throws MojoExecutionException {
+        JModStripDebug strip = new JModStripDebug(getDebugAttributes());
+        // the staged classes depend on the attributes
+        File stagingDirectory =
+                new File(outputDirectory, "jmod-stripped/" + String.join("-", new TreeSet<>(getDebugAttributes())));
+        try {
+            strippedClassPaths = strip.stage(getClassPaths(), stagingDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to stage the classes without debug attributes in " + stagingDirectory.getAbsolutePath()
+                            + ": " + e.getMessage(),
+                    e);
+        }
+        long saved = strip.getOriginalBytes() - strip.getStrippedBytes();
+        getLog().info("Stripped " + String.join(", ", getDebugAttributes()) + " from " + strip.getClasses()
+                + " classes (" + strip.getRewritten() + " rewritten): " + saved + " bytes saved, "
+                + (strip.getOriginalBytes() == 0 ? 0 : saved * 100 / strip.getOriginalBytes()) + "%.");
+        attribute("jmod.stripDebug.classes", strip.getClasses());
+        attribute("jmod.stripDebug.rewritten", strip.getRewritten());
+        attribute("jmod.stripDebug.originalBytes", strip.getOriginalBytes());
+        attribute("jmod.stripDebug.savedBytes", saved);
+    }
+
+    private List<String> getDebugAttributes() {
+        return debugAttributes == null || debugAttributes.isEmpty() ? JModStripDebug.ATTRIBUTES : debugAttributes;
+    }
+
+    /**
+     * Write the variants of the {@link #platforms} from the jmod file of the project and attach them.
+     */
+    private void createPlatformJModFiles() throws MojoExecutionException {
+        final File resultingJModFile = getResultingJModFile();
+        final Map<Platform, Map<String, File>> cmdsByPlatform = new LinkedHashMap<>();
+        final Map<Platform, Map<String, File>> libsByPlatform = new LinkedHashMap<>();
+        final Map<Platform, JModChecksums> digestsByPlatform = new LinkedHashMap<>();
+        for (Platform platform : platforms) {
+            cmdsByPlatform.put(platform, platformInputs("bin/", platform.getCmds()));
+            libsByPlatform.put(platform, platformInputs("lib/", platform.getLibs()));
+            digestsByPlatform.put(platform, newChecksums());
+        }
+        attribute("jmod.platforms", platforms.size());
+
+        int poolSize = Math.min(platforms.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try (JModFile source = JModFile.open(resultingJModFile)) {
+            Map<Platform, Future<JModPlatformVariant>> variants = new LinkedHashMap<>();
+            for (final Platform platform : platforms) {
+                variants.put(platform, executor.submit(new Callable<JModPlatformVariant>() {
+                    @Override
+                    public JModPlatformVariant call() throws IOException {
+                        return JModPlatformVariant.write(
+                                source,
+                                getClassifiedJModFile(platform.getClassifier()),
+                                platform.getTargetPlatform(),
+                                cmdsByPlatform.get(platform),
+                                libsByPlatform.get(platform),
+                                digestsByPlatform.get(platform));
+                    }
+                }));
+            }
+            for (Map.Entry<Platform, Future<JModPlatformVariant>> variant : variants.entrySet()) {
+                Platform platform = variant.getKey();
+                JModPlatformVariant result;
+                try {
+                    result = variant.getValue().get();
+                } catch (ExecutionException e) {
+                    throw new MojoExecutionException(
+                            "Unable to create the jmod file for the platform " + platform.getClassifier() + ": "
+                                    + e.getCause().getMessage(),
+                            e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while creating the jmod files for the platforms", e);
+                }
+                File jmodFile = getClassifiedJModFile(platform.getClassifier());
+                writeChecksums(jmodFile, digestsByPlatform.get(platform));
+                getLog().info("Created " + jmodFile.getName() + ": " + result.getCopied() + " entries copied, "
+                        + result.getCompressed() + " compressed.");
+                projectHelper.attachArtifact(getProject(), "jmod", platform.getClassifier(), jmodFile);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to create the jmod files for the platforms from " + resultingJModFile.getAbsolutePath()
+                            + ": " + e.getMessage(),
+                    e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Write the checksums next to a jmod file, or delete the ones of a previous build if no checksums are requested.
+     *
+     * @param digests the checksums of the file, or <code>null</code>
+     */
+    private void writeChecksums(File jmodFile, JModChecksums digests) throws MojoExecutionException {
+        try {
+            if (digests == null) {
+                JModChecksums.delete(jmodFile);
+                return;
+            }
+            for (File file : digests.write(jmodFile)) {
+                getLog().debug("Wrote " + file);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to write the checksums of " + jmodFile.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the checksums to update while a jmod file is written, or <code>null</code> if none are requested
+     */
+    private JModChecksums newChecksums() throws MojoExecutionException {
+        try {
+            return checksums ? new JModChecksums() : null;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to compute checksums: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the checksums of a jmod file created by the <code>jmod</code> tool
+     */
+    private JModChecksums readChecksums(File jmodFile) throws MojoExecutionException {
+        try {
+            return JModChecksums.read(jmodFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to compute the checksums of " + jmodFile.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the inputs of a section of a platform, or <code>null</code> if the section of the jmod file of the
+     *         project is kept
+     */
+    private Map<String, File> platformInputs(String section, List<String> directories) throws MojoExecutionException {
+        if (directories == null || directories.isEmpty()) {
+            return null;
+        }
+        Map<String, File> inputs = new LinkedHashMap<>();
+        try {
+            addIncrementalInputs(inputs, section, resolveAgainstProjectBaseDir(directories));
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to collect the " + section + " inputs of a platform: " + e.getMessage(), e);
+        }
+        return inputs;
+    }
+
+    /**
+     * @return the <code>jmods</code> folder of the {@link #jdkArchive}, extracted by this or an earlier build
+     */
+    private File extractJdkArchive() throws MojoExecutionException {
+        JdkArchive archive;
+        try {
+            archive = JdkArchive.extract(jdkArchive, jdkArchiveCacheDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to extract the JDK archive " + jdkArchive.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+        attribute("jmod.jdkArchive.cached", archive.isCached());
+        if (archive.isCached()) {
+            getLog().debug("Using the jmods of " + jdkArchive + " in " + archive.getJmodsDirectory());
+        } else {
+            getLog().info("Extracted " + archive.getExtracted() + " jmod files of " + jdkArchive.getName() + " into "
+                    + archive.getJmodsDirectory());
+        }
+        return archive.getJmodsDirectory();
+    }
+
+    /**
+     * Look up the <code>jmod</code> tools of the {@link #jdkToolchains}.
+     *
+     * @return the executables by the classifier of their jmod file
+     */
+    private Map<String, String> resolveToolchainJModExecutables() throws IOException, MojoFailureException {
+        Map<String, String> executables = new LinkedHashMap<>();
+        if (jdkToolchains == null) {
+            return executables;
+        }
+        for (Map<String, String> requirements : jdkToolchains) {
+            Toolchain toolchain = getToolchain(requirements);
+            if (toolchain == null) {
+                String message = "No JDK toolchain matches the requirements " + requirements + ".";
+                getLog().error(message);
+                throw new MojoFailureException(message);
+            }
+            String executable = getJModExecutable(toolchain);
+            File jdkHome = new File(executable).getParentFile().getParentFile();
+            if (!new File(jdkHome, JMODS).isDirectory()) {
+                throw new IOException("The JDK " + jdkHome.getAbsolutePath() + " of the toolchain " + toolchain
+                        + " has no JMODS folder, see https://openjdk.org/jeps/493");
+            }
+            int featureVersion = JdkRelease.featureVersion(jdkHome);
+            if (featureVersion < 0) {
+                throw new IOException("Unable to determine the version of the JDK " + jdkHome.getAbsolutePath());
+            }
+            String classifier = "jdk" + featureVersion;
+            if (executables.put(classifier, executable) != null) {
+                String message = "More than one of the jdkToolchains is a JDK " + featureVersion + ".";
+                getLog().error(message);
+                throw new MojoFailureException(message);
+            }
+            getLog().debug("Toolchain " + classifier + " in maven-jmod-plugin: jmod [ " + executable + " ]");
+        }
+        return executables;
+    }
+
+    /**
+     * Create the jmod files with the {@link #jdkToolchains} concurrently and attach them.
+     */
+    private void createToolchainJModFiles() throws MojoExecutionException, MojoFailureException {
+        attribute("jmod.toolchains", toolchainJModExecutables.size());
+        int poolSize =
+                Math.min(toolchainJModExecutables.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            Map<String, Future<Void>> results = new LinkedHashMap<>();
+            for (Map.Entry<String, String> toolchain : toolchainJModExecutables.entrySet()) {
+                File jmodFile = getClassifiedJModFile(toolchain.getKey());
+                File jdkHome = new File(toolchain.getValue()).getParentFile().getParentFile();
+                final Commandline cmd = createJModCreateCommandLine(jmodFile, new File(jdkHome, JMODS));
+                cmd.setExecutable(toolchain.getValue());
+                deleteOutputIfAlreadyExists(jmodFile);
+                results.put(toolchain.getKey(), executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws MojoExecutionException {
+                        executeCommand(cmd, outputDirectory);
+                        return null;
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<Void>> result : results.entrySet()) {
+                String classifier = result.getKey();
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof MojoExecutionException) {
+                        throw (MojoExecutionException) e.getCause();
+                    }
+                    throw new MojoExecutionException(
+                            "Unable to create the jmod file for " + classifier + ": "
+                                    + e.getCause().getMessage(),
+                            e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while creating the jmod files for the toolchains", e);
+                }
+                File jmodFile = getClassifiedJModFile(classifier);
+                // created by the jmod tool, so it has to be read to checksum it
+                writeChecksums(jmodFile, checksums ? readChecksums(jmodFile) : null);
+                getLog().info("Created " + jmodFile.getName() + " with " + toolchainJModExecutables.get(classifier));
+                projectHelper.attachArtifact(getProject(), "jmod", classifier, jmodFile);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private File getClassifiedJModFile(String classifier) {
+        return new File(getResultingJModFile().getParentFile(), outputFileName + '-' + classifier + ".jmod");
+    }
+
+    File getResultingJModFile() {
+        return new File(new File(outputDirectory, JMODS), outputFileName + ".jmod");
+    }
+
+    File getTargetClassesDirectory() {
+        return targetClassesDirectory;
+    }
+
+    /**
+     * @return the existing directories of the sections besides the classes: the configured ones or the defaults
+     */
+    List<File> getSectionDirectories() {
+        List<String> paths = new ArrayList<>();
+        paths.addAll(handleConfigurationListWithDefault(cmds, DEFAULT_CMD_DIRECTORY));
+        paths.addAll(handleConfigurationListWithDefault(configs, DEFAULT_CONFIG_DIRECTORY));
+        paths.addAll(handleConfigurationListWithDefault(libs, DEFAULT_LIB_DIRECTORY));
+        paths.addAll(handleConfigurationListWithDefault(headerFiles, DEFAULT_HEADER_FILES_DIRECTORY));
+        paths.addAll(handleConfigurationListWithDefault(legalNotices, DEFAULT_LEGAL_NOTICES_DIRECTORY));
+        paths.addAll(handleConfigurationListWithDefault(manPages, DEFAULT_MAN_PAGES_DIRECTORY));
+        List<File> directories = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            File directory = new File(path);
+            if (directory.isDirectory()) {
+                directories.add(directory);
+            }
+        }
+        return directories;
+    }
+
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @return whether the jmod files of the {@link #platforms} and the {@link #jdkToolchains} are created and attached
+     *         too, and the budgets are checked
+     */
+    boolean isAttaching() {
+        return true;
+    }
+
+    /**
+     * @return the names of the configured parameters which only apply if the jmod files are {@link #isAttaching()
+     *         attached}
+     */
+    List<String> getAttachingParameters() {
+        List<String> names = new ArrayList<>();
+        if (platforms != null && !platforms.isEmpty()) {
+            names.add("platforms");
+        }
+        if (jdkToolchains != null && !jdkToolchains.isEmpty()) {
+            names.add("jdkToolchains");
+        }
+        if (maxJmodSize != null) {
+            names.add("maxJmodSize");
+        }
+        if (maxSectionSizes != null && !maxSectionSizes.isEmpty()) {
+            names.add("maxSectionSizes");
+        }
+        if (maxPackagingTime != null) {
+            names.add("maxPackagingTime");
+        }
+        return names;
+    }
+
+    /**
+     * Update the previous jmod file via {@link JModUpdate} if it has been created from the same options and module
+     * descriptor.
+     *
+     * @return whether the file has been updated, otherwise it has to be created by the <code>jmod</code> tool
+     */
+    private boolean updateIncrementally(
+            File jmodFile, String fingerprint, JModChecksums digests, Map<String, String> entryDigests)
+            throws MojoExecutionException {
+        if (!jmodFile.isFile()) {
+            getLog().debug("There is no previous " + jmodFile.getName() + " to update.");
+            return false;
+        }
+        File stateFile = getIncrementalStateFile();
+        if (!stateFile.isFile()) {
+            getLog().debug("It is unknown how " + jmodFile.getName() + " has been created.");
+            return false;
+        }
+        Properties state = new Properties();
+        try (InputStream in = new FileInputStream(stateFile)) {
+            state.load(in);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to read the incremental state " + stateFile.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+        if (!fingerprint.equals(state.getProperty("fingerprint"))
+                || !String.valueOf(jmodFile.length()).equals(state.getProperty("size"))
+                || !String.valueOf(jmodFile.lastModified()).equals(state.getProperty("lastModified"))) {
+            getLog().info("The module descriptor or the options have changed since " + jmodFile.getName()
+                    + " has been created, creating it from scratch.");
+            return false;
+        }
+
+        phase("jmod-update");
+        JModUpdate update;
+        try {
+            update = JModUpdate.update(
+                    jmodFile,
+                    collectIncrementalInputs(),
+                    StringUtils.isNotBlank(mainClass) ? mainClass : null,
+                    targetPlatform,
+                    digests,
+                    entryDigests);
+        } catch (IOException e) {
+            getLog().info("Unable to update " + jmodFile.getName() + " incrementally, creating it from scratch: "
+                    + e.getMessage());
+            return false;
+        }
+        writeIncrementalState(jmodFile, fingerprint);
+        attribute("jmod.entries.copied", update.getCopied());
+        attribute("jmod.entries.compressed", update.getCompressed());
+        attribute("jmod.entries.removed", update.getRemoved());
+        attribute("jmod.update.copiedBytes", update.getCopiedBytes());
+        attribute("jmod.update.compressedBytes", update.getCompressedBytes());
+        getLog().info("Updated " + jmodFile.getName() + " incrementally: " + update.getCopied() + " entries copied, "
+                + update.getCompressed() + " compressed, " + update.getRemoved() + " removed.");
+        return true;
+    }
+
+    /**
+     * The inputs of the jmod file as the <code>jmod</code> tool arranges them, except the
+     * <code>module-info.class</code>.
+     *
+     * @throws IOException in case the inputs can not be handled by an update
+     */
+    private Map<String, File> collectIncrementalInputs() throws IOException {
+        if (excludes != null && !excludes.isEmpty()) {
+            throw new IOException("excludes are configured.");
+        }
+        Map<String, File> inputs = new LinkedHashMap<>();
+        for (String path : getJModClassPaths()) {
+            File element = new File(path);
+            if (!element.isDirectory()) {
+                throw new IOException(element.getName() + " on the class path is not a directory.");
+            }
+            addIncrementalInputs(inputs, "classes/", element, true);
+        }
+        addIncrementalInputs(inputs, "conf/", handleConfigurationListWithDefault(configs, DEFAULT_CONFIG_DIRECTORY));
+        addIncrementalInputs(inputs, "bin/", handleConfigurationListWithDefault(cmds, DEFAULT_CMD_DIRECTORY));
+        addIncrementalInputs(inputs, "lib/", handleConfigurationListWithDefault(libs, DEFAULT_LIB_DIRECTORY));
+        addIncrementalInputs(
+                inputs, "include/", handleConfigurationListWithDefault(headerFiles, DEFAULT_HEADER_FILES_DIRECTORY));
+        addIncrementalInputs(
+                inputs, "legal/", handleConfigurationListWithDefault(legalNotices, DEFAULT_LEGAL_NOTICES_DIRECTORY));
+        addIncrementalInputs(inputs, "man/", handleConfigurationListWithDefault(manPages, DEFAULT_MAN_PAGES_DIRECTORY));
+        return inputs;
+    }
+
+    private static void addIncrementalInputs(Map<String, File> inputs, String section, List<String> directories)
+            throws IOException {
+        for (String directory : directories) {
+            addIncrementalInputs(inputs, section, new File(directory), false);
+        }
+    }
+
+    /**
+     * @param top whether the directory is the top level directory of a class path element, whose
+     *            <code>module-info.class</code> is not copied by the <code>jmod</code> tool
+     */
+    private static void addIncrementalInputs(Map<String, File> inputs, String prefix, File directory, boolean top)
+            throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Unable to list " + directory.getAbsolutePath());
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = prefix + file.getName();
+            if (file.isDirectory()) {
+                addIncrementalInputs(inputs, name + '/', file, false);
+            } else if (!(top && "module-info.class".equals(file.getName())) && inputs.put(name, file) != null) {
+                throw new IOException("there is more than one input for " + name + ".");
+            }
+        }
+    }
+
+    /**
+     * @return the hash of the options of the <code>jmod</code> tool and the module descriptor, which determine the
+     *         <code>module-info.class</code> in the jmod file, or <code>null</code> if there is no module descriptor
+     */
+    private String fingerprint(Commandline cmd) throws MojoExecutionException {
+        File moduleInfo = new File(targetClassesDirectory, "module-info.class");
+        if (!moduleInfo.isFile()) {
+            return null;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new MojoExecutionException("SHA-256 is not supported by the JVM", e);
+        }
+        digest.update(jModExecutable.getBytes(StandardCharsets.UTF_8));
+        String[] arguments = cmd.getArguments();
+        // the last argument is the jmod file itself
+        for (int i = 0; i < arguments.length - 1; i++) {
+            digest.update((byte) 0);
+            digest.update(arguments[i].getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        try {
+            digest.update(Files.readAllBytes(moduleInfo.toPath()));
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to read " + moduleInfo.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Record what the jmod file has been created from, so the next build can decide whether it can be updated.
+     */
+    private void writeIncrementalState(File jmodFile, String fingerprint) throws MojoExecutionException {
+        File stateFile = getIncrementalStateFile();
+        if (!stateFile.getParentFile().mkdirs() && !stateFile.getParentFile().isDirectory()) {
+            throw new MojoExecutionException("Unable to create directory " + stateFile.getParent());
+        }
+        Properties state = new Properties();
+        state.setProperty("fingerprint", fingerprint);
+        state.setProperty("size", String.valueOf(jmodFile.length()));
+        state.setProperty("lastModified", String.valueOf(jmodFile.lastModified()));
+        try (OutputStream out = new FileOutputStream(stateFile)) {
+            state.store(out, null);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to write the incremental state " + stateFile.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteIncrementalState() throws MojoExecutionException {
+        File stateFile = getIncrementalStateFile();
+        try {
+            Files.deleteIfExists(stateFile.toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to delete the incremental state " + stateFile.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private File getIncrementalStateFile() {
+        return new File(outputDirectory, "jmod-incremental/" + outputFileName + ".properties");
+    }
+
+    /**
+     * Measure the inputs of each section as own phase, which is only done for the trace spans.
+     */
+    private void scanInputSections() throws MojoExecutionException {
+        scanInputSection("classes", getClassPaths());
+        scanInputSection("config", handleConfigurationListWithDefault(configs, DEFAULT_CONFIG_DIRECTORY));
+        scanInputSection("cmds", handleConfigurationListWithDefault(cmds, DEFAULT_CMD_DIRECTORY));
+        scanInputSection("libs", handleConfigurationListWithDefault(libs, DEFAULT_LIB_DIRECTORY));
+        scanInputSection(
+                "header-files", handleConfigurationListWithDefault(headerFiles, DEFAULT_HEADER_FILES_DIRECTORY));
+        scanInputSection(
+                "legal-notices", handleConfigurationListWithDefault(legalNotices, DEFAULT_LEGAL_NOTICES_DIRECTORY));
+        scanInputSection("man-pages", handleConfigurationListWithDefault(manPages, DEFAULT_MAN_PAGES_DIRECTORY));
+    }
+
+    private void scanInputSection(String section, List<String> paths) throws MojoExecutionException {
+        if (paths.isEmpty()) {
+            return;
+        }
+        phase("scan-" + section);
+        long[] totals = new long[2];
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                scanDirectory(file, totals);
+            } else if (file.isFile()) {
+                try (ZipFile zip = new ZipFile(file)) {
+                    Enumeration<? extends ZipEntry> entries = zip.entries();
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        if (!entry.isDirectory()) {
+                            totals[0]++;
+                            totals[1] += Math.max(entry.getSize(), 0);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new MojoExecutionException(
+                            "Unable to scan " + file.getAbsolutePath() + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        attribute("jmod.section", section);
+        attribute("jmod.section.paths", paths.size());
+        attribute("jmod.section.entries", totals[0]);
+        attribute("jmod.section.bytes", totals[1]);
+    }
+
+    private static void scanDirectory(File directory, long[] totals) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                scanDirectory(file, totals);
+            } else {
+                totals[0]++;
+                totals[1] += file.length();
+            }
+        }
+    }
+
+    private void writeSizeReport(JModSizeReport report) throws MojoExecutionException {
+        try {
+            report.write(sizeReportFile, sizeReportTopEntries);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to write the size report " + sizeReportFile.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+        report.log(getLog());
+        getLog().info("The size report has been written to " + sizeReportFile.getAbsolutePath());
+    }
+
+    private void checkBudgets(JModSizeReport report, long packagingMillis) throws MojoFailureException {
+        List<String> exceeded = budgets.check(report, packagingMillis);
+        if (exceeded.isEmpty()) {
+            return;
+        }
+        for (String message : exceeded) {
+            if (failOnBudgetExceeded) {
+                getLog().error(message);
+            } else {
+                getLog().warn(message);
+            }
+        }
+        if (failOnBudgetExceeded) {
+            throw new MojoFailureException("The jmod file " + outputFileName + ".jmod exceeds " + exceeded.size()
+                    + " of its budgets: " + String.join(" ", exceeded));
         }
     }
 
@@ -359,6 +1348,16 @@ public class JModCreateMojo extends AbstractJModMojo {
             }
         }
 
+        try {
+            budgets = new JModBudgets(maxJmodSize, maxSectionSizes, maxPackagingTime);
+            if (stripDebug) {
+                new JModStripDebug(getDebugAttributes());
+            }
+        } catch (IllegalArgumentException e) {
+            getLog().error(e.getMessage());
+            throw new MojoFailureException(e.getMessage());
+        }
+
         throwExceptionIfNotExistOrNotADirectory(handleConfigurationListWithDefault(cmds, DEFAULT_CMD_DIRECTORY), "cmd");
         throwExceptionIfNotExistOrNotADirectory(
                 handleConfigurationListWithDefault(configs, DEFAULT_CONFIG_DIRECTORY), "config");
@@ -369,6 +1368,37 @@ public class JModCreateMojo extends AbstractJModMojo {
                 handleConfigurationListWithDefault(legalNotices, DEFAULT_LEGAL_NOTICES_DIRECTORY), "legalNotice");
         throwExceptionIfNotExistOrNotADirectory(
                 handleConfigurationListWithDefault(manPages, DEFAULT_MAN_PAGES_DIRECTORY), "manPage");
+
+        if (jdkArchive != null && !jdkArchive.isFile()) {
+            String message = "The jdkArchive " + jdkArchive + " does not exist or is not a file.";
+            getLog().error(message);
+            throw new MojoFailureException(message);
+        }
+
+        Set<String> classifiers = new TreeSet<>(toolchainJModExecutables.keySet());
+        if (platforms != null) {
+            for (Platform platform : platforms) {
+                if (StringUtils.isBlank(platform.getClassifier())) {
+                    String message = "Each platform needs a classifier.";
+                    getLog().error(message);
+                    throw new MojoFailureException(message);
+                }
+                if (!classifiers.add(platform.getClassifier())) {
+                    String message = "The classifier " + platform.getClassifier()
+                            + " is used by more than one platform or toolchain.";
+                    getLog().error(message);
+                    throw new MojoFailureException(message);
+                }
+                if (platform.getCmds() != null) {
+                    throwExceptionIfNotExistOrNotADirectory(
+                            resolveAgainstProjectBaseDir(platform.getCmds()), platform.getClassifier() + " cmd");
+                }
+                if (platform.getLibs() != null) {
+                    throwExceptionIfNotExistOrNotADirectory(
+                            resolveAgainstProjectBaseDir(platform.getLibs()), platform.getClassifier() + " lib");
+                }
+            }
+        }
     }
 
     private void throwExceptionIfNotExistOrNotADirectory(List<String> configurations, String partialMessage)
@@ -384,20 +1414,63 @@ public class JModCreateMojo extends AbstractJModMojo {
         }
     }
 
-    private List<File> getCompileClasspathElements(MavenProject project) {
+    private List<File> getCompileClasspathElements(MavenProject project, boolean modular) {
         List<File> list = new ArrayList<File>(project.getArtifacts().size() + 1);
 
         if (targetClassesDirectory.exists()) {
             list.add(new File(project.getBuild().getOutputDirectory()));
         }
 
+        Map<String, MavenProject> reactorProjects = new HashMap<>();
+        if (resolveReactorClasses && getSession() != null) {
+            for (MavenProject reactorProject : getSession().getProjects()) {
+                reactorProjects.put(
+                        ArtifactUtils.key(
+                                reactorProject.getGroupId(),
+                                reactorProject.getArtifactId(),
+                                reactorProject.getVersion()),
+                        reactorProject);
+            }
+        }
+
+        int reactorClasses = 0;
         for (Artifact a : project.getArtifacts()) {
-            list.add(a.getFile());
+            File classes = getReactorClasses(reactorProjects, a, modular);
+            if (classes != null) {
+                getLog().debug("Using " + classes + " of the reactor for " + a);
+                list.add(classes);
+                reactorClasses++;
+            } else {
+                list.add(a.getFile());
+            }
         }
+        attribute("jmod.reactorClasses", reactorClasses);
         return list;
     }
 
+    /**
+     * @return the output directory of the project of the reactor which an artifact is the main jar of, or
+     *         <code>null</code> if there is none or the project has not been compiled
+     */
+    private static File getReactorClasses(
+            Map<String, MavenProject> reactorProjects, Artifact artifact, boolean modular) {
+        if (!"jar".equals(artifact.getType()) || artifact.hasClassifier()) {
+            return null;
+        }
+        MavenProject reactorProject = reactorProjects.get(
+                ArtifactUtils.key(artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion()));
+        if (reactorProject == null) {
+            return null;
+        }
+        File classes = new File(reactorProject.getBuild().getOutputDirectory());
+        if (!classes.isDirectory() || (modular && !new File(classes, "module-info.class").isFile())) {
+            return null;
+        }
+        return classes;
+    }
+
     private void preparePaths() {
+        Object event = FlightRecorderEvents.RESOLVE_PATHS.begin();
         boolean hasModuleDescriptor = false;
 
         // Assuming that the module-info.java is already compiled by compiler plugin so only
@@ -409,7 +1482,7 @@ public class JModCreateMojo extends AbstractJModMojo {
             hasModuleDescriptor = true;
         }
 
-        Collection<File> dependencyArtifacts = getCompileClasspathElements(getProject());
+        Collection<File> dependencyArtifacts = getCompileClasspathElements(getProject(), hasModuleDescriptor);
 
         if (hasModuleDescriptor) {
             // For now only allow named modules. Once we can create a graph with ASM we can specify exactly the modules,
@@ -433,6 +1506,7 @@ public class JModCreateMojo extends AbstractJModMojo {
                 resolvePathsResult = locationManager.resolvePaths(request);
 
                 JavaModuleDescriptor moduleDescriptor = resolvePathsResult.getMainModuleDescriptor();
+                recordModuleDescriptors(moduleInfo, resolvePathsResult);
 
                 for (Map.Entry<File, ModuleNameSource> entry :
                         resolvePathsResult.getModulepathElements().entrySet()) {
@@ -486,6 +1560,40 @@ public class JModCreateMojo extends AbstractJModMojo {
         // Keep class/module-path entries stable and unique while preserving order.
         classpathElements = new ArrayList<>(new LinkedHashSet<>(classpathElements));
         modulepathElements = new ArrayList<>(new LinkedHashSet<>(modulepathElements));
+
+        FlightRecorderEvents.RESOLVE_PATHS.commit(
+                event,
+                getProject().getId(),
+                dependencyArtifacts.size(),
+                classpathElements.size(),
+                modulepathElements.size());
+    }
+
+    /**
+     * The descriptors are read by the resolution, so the events only carry the modules and their sizes; the time is
+     * part of the path resolution event.
+     */
+    private void recordModuleDescriptors(File moduleInfo, ResolvePathsResult<File> resolvePathsResult) {
+        if (!FlightRecorderEvents.MODULE_DESCRIPTOR.isEnabled()) {
+            return;
+        }
+        FlightRecorderEvents.MODULE_DESCRIPTOR.commit(
+                FlightRecorderEvents.MODULE_DESCRIPTOR.begin(),
+                resolvePathsResult.getMainModuleDescriptor().name(),
+                moduleInfo.getAbsolutePath(),
+                moduleInfo.length());
+        for (Map.Entry<File, JavaModuleDescriptor> element :
+                resolvePathsResult.getPathElements().entrySet()) {
+            if (element.getValue() != null) {
+                File source = element.getKey();
+                File descriptor = new File(source, "module-info.class");
+                FlightRecorderEvents.MODULE_DESCRIPTOR.commit(
+                        FlightRecorderEvents.MODULE_DESCRIPTOR.begin(),
+                        element.getValue().name(),
+                        source.getAbsolutePath(),
+                        source.isDirectory() ? descriptor.length() : source.length());
+            }
+        }
     }
 
     private boolean isJmodFile(File file) {
@@ -501,22 +1609,17 @@ public class JModCreateMojo extends AbstractJModMojo {
         }
     }
 
-    private Commandline createJModCreateCommandLine(File resultingJModFile) {
+    /**
+     * @param platformJmods the <code>jmods</code> of the JDK which are added to the module path
+     */
+    private Commandline createJModCreateCommandLine(File resultingJModFile, File platformJmods) {
         Commandline command = new Commandline();
         command.createArg().setValue("create");
         if (moduleVersion != null) {
             command.createArg().setValue("--module-version=" + moduleVersion);
         }
 
-        List<String> classPaths;
-        if (classpathElements != null) {
-            classPaths = new ArrayList<>(classpathElements);
-        } else {
-            classPaths = new ArrayList<>(1);
-        }
-        if (targetClassesDirectory.exists()) {
-            classPaths.add(targetClassesDirectory.getAbsolutePath());
-        }
+        List<String> classPaths = getJModClassPaths();
 
         command.createArg()
                 .setValue("--class-path=" + getPlatformSeparatedList(classPaths).replace("\\", "\\\\"));
@@ -562,7 +1665,7 @@ public class JModCreateMojo extends AbstractJModMojo {
         }
 
         List<String> modulePaths = new ArrayList<>(modulepathElements);
-        modulePaths.add(new File(javaHome, JMODS).getAbsolutePath());
+        modulePaths.add(platformJmods.getAbsolutePath());
         command.createArg()
                 .setValue(
                         "--module-path=" + getPlatformSeparatedList(modulePaths).replace("\\", "\\\\"));
@@ -584,6 +1687,30 @@ public class JModCreateMojo extends AbstractJModMojo {
         return command;
     }
 
+    /**
+     * @return the elements which are given to <code>jmod</code> via <code>--class-path</code>, which are staged if
+     *         the debug attributes are stripped
+     */
+    private List<String> getJModClassPaths() {
+        return stripDebug ? new ArrayList<>(strippedClassPaths.keySet()) : getClassPaths();
+    }
+
+    /**
+     * @return the class path elements and the classes of the project
+     */
+    private List<String> getClassPaths() {
+        List<String> classPaths;
+        if (classpathElements != null) {
+            classPaths = new ArrayList<>(classpathElements);
+        } else {
+            classPaths = new ArrayList<>(1);
+        }
+        if (targetClassesDirectory.exists()) {
+            classPaths.add(targetClassesDirectory.getAbsolutePath());
+        }
+        return classPaths;
+    }
+
     private boolean isConfigurationDefinedInPOM(List<String> configuration) {
         return configuration != null && !configuration.isEmpty();
     }
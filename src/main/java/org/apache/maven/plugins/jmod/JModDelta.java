@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An entry level delta between two <code>jmod</code> files. The delta describes the new file as a sequence of
+ * segments which are either copied from the previous file (the compressed data of unchanged entries) or stored
+ * literally in the delta (added and changed entries, local headers and the central directory). Applying the delta to
+ * the previous file therefore rebuilds the new file byte by byte, which is verified with the SHA-256 hash recorded in
+ * the delta.
+ * <p>
+ * Layout of a delta file (all numbers big endian):
+ * </p>
+ *
+ * <pre>
+ * "JMODDELTA" version:int
+ * baseSize:long baseSha256:byte[32] targetSize:long targetSha256:byte[32]
+ * added:(count:int name:utf*) changed:(count:int name:utf*) removed:(count:int name:utf*)
+ * segments:(count:int (0 offset:long length:long | 1 length:long byte[length])*)
+ * </pre>
+ */
+final class JModDelta {
+
+    private static final byte[] MAGIC = "JMODDELTA".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int VERSION = 1;
+
+    private static final int COPY = 0;
+
+    private static final int DATA = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<String> added = new ArrayList<>();
+
+    private final List<String> changed = new ArrayList<>();
+
+    private final List<String> removed = new ArrayList<>();
+
+    private long copiedBytes;
+
+    private long literalBytes;
+
+    private JModDelta() {}
+
+    List<String> getAdded() {
+        return added;
+    }
+
+    List<String> getChanged() {
+        return changed;
+    }
+
+    List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return the number of bytes of the new file which are copied from the previous file
+     */
+    long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * @return the number of bytes of the new file which are contained in the delta
+     */
+    long getLiteralBytes() {
+        return literalBytes;
+    }
+
+    /**
+     * Create the delta which turns <code>baseFile</code> into <code>targetFile</code>.
+     *
+     * @param baseFile the previous <code>jmod</code> file
+     * @param targetFile the new <code>jmod</code> file
+     * @param deltaFile the delta file to write
+     * @return the summary of the delta
+     * @throws IOException in case of a failure reading the jmod files or writing the delta
+     */
+    static JModDelta create(File baseFile, File targetFile, File deltaFile) throws IOException {
+        JModDelta delta = new JModDelta();
+        try (JModFile base = JModFile.open(baseFile);
+                JModFile target = JModFile.open(targetFile)) {
+            List<Segment> segments = delta.computeSegments(base, target);
+
+            File parent = deltaFile.getParentFile();
+            if (parent != null && !parent.mkdirs() && !parent.isDirectory()) {
+                throw new IOException("Unable to create directory " + parent.getAbsolutePath());
+            }
+            try (DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(new FileOutputStream(deltaFile), BUFFER_SIZE))) {
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(base.size());
+                out.write(sha256(baseFile));
+                out.writeLong(target.size());
+                out.write(sha256(targetFile));
+                writeNames(out, delta.added);
+                writeNames(out, delta.changed);
+                writeNames(out, delta.removed);
+                out.writeInt(segments.size());
+                for (Segment segment : segments) {
+                    if (segment.copy) {
+                        out.writeByte(COPY);
+                        out.writeLong(segment.offset);
+                        out.writeLong(segment.length);
+                    } else {
+                        out.writeByte(DATA);
+                        out.writeLong(segment.length);
+                        try (InputStream in = target.getRangeInputStream(segment.offset, segment.length)) {
+                            copy(in, out, segment.length);
+                        }
+                    }
+                }
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Rebuild the new <code>jmod</code> file from the previous one and the delta.
+     *
+     * @param baseFile the previous <code>jmod</code> file the delta has been created for
+     * @param deltaFile the delta
+     * @param targetFile the file to write
+     * @return the summary of the delta
+     * @throws IOException in case the delta does not belong to the base file or the result does not match the
+     *             recorded hash
+     */
+    static JModDelta apply(File baseFile, File deltaFile, File targetFile) throws IOException {
+        JModDelta delta = new JModDelta();
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(new FileInputStream(deltaFile), BUFFER_SIZE))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(MAGIC, magic) || in.readInt() != VERSION) {
+                throw new IOException(deltaFile + " is not a jmod delta file.");
+            }
+            long baseSize = in.readLong();
+            byte[] baseHash = readHash(in);
+            long targetSize = in.readLong();
+            byte[] targetHash = readHash(in);
+            if (baseFile.length() != baseSize || !Arrays.equals(baseHash, sha256(baseFile))) {
+                throw new IOException("The delta " + deltaFile + " has not been created for " + baseFile + ".");
+            }
+            delta.added.addAll(readNames(in));
+            delta.changed.addAll(readNames(in));
+            delta.removed.addAll(readNames(in));
+
+            File parent = targetFile.getParentFile();
+            if (parent != null && !parent.mkdirs() && !parent.isDirectory()) {
+                throw new IOException("Unable to create directory " + parent.getAbsolutePath());
+            }
+            MessageDigest digest = newSha256();
+            boolean verified = false;
+            try (JModFile base = JModFile.open(baseFile);
+                    OutputStream out = new DigestOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(targetFile), BUFFER_SIZE), digest)) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    int type = in.readByte();
+                    if (type == COPY) {
+                        long offset = in.readLong();
+                        long length = in.readLong();
+                        try (InputStream segment = base.getRangeInputStream(offset, length)) {
+                            copy(segment, out, length);
+                        }
+                        delta.copiedBytes += length;
+                    } else if (type == DATA) {
+                        long length = in.readLong();
+                        copy(in, out, length);
+                        delta.literalBytes += length;
+                    } else {
+                        throw new IOException("Invalid segment type " + type + " in " + deltaFile);
+                    }
+                }
+                out.flush();
+                verified = delta.copiedBytes + delta.literalBytes == targetSize;
+            } finally {
+                if (!verified || !Arrays.equals(targetHash, digest.digest())) {
+                    targetFile.delete();
+                    verified = false;
+                }
+            }
+            if (!verified) {
+                throw new IOException("The result of applying " + deltaFile + " does not match the recorded hash.");
+            }
+        }
+        return delta;
+    }
+
+    private List<Segment> computeSegments(JModFile base, JModFile target) throws IOException {
+        List<JModFile.Entry> entries = sortedByOffset(target);
+
+        List<Segment> segments = new ArrayList<>();
+        addSegment(segments, false, 0, JModFile.MAGIC.length);
+        long position = JModFile.MAGIC.length;
+        for (int i = 0; i < entries.size(); i++) {
+            JModFile.Entry entry = entries.get(i);
+            long start = entry.getLocalHeaderOffset();
+            long end = i + 1 < entries.size()
+                    ? entries.get(i + 1).getLocalHeaderOffset()
+                    : target.getCentralDirectoryStart();
+            if (start > position) {
+                addSegment(segments, false, position, start - position);
+            }
+            position = end;
+
+            JModFile.Entry previous = base.getEntry(entry.getName());
+            if (previous == null) {
+                added.add(entry.getName());
+            } else if (previous.getCrc() == entry.getCrc()
+                    && previous.getCompressedSize() == entry.getCompressedSize()
+                    && sameContent(
+                            base,
+                            base.getDataOffset(previous),
+                            target,
+                            target.getDataOffset(entry),
+                            entry.getCompressedSize())) {
+                // Only the compressed data is copied: the local header contains the modification time which differs
+                // between builds even if the content is the same.
+                long dataStart = target.getDataOffset(entry);
+                addSegment(segments, false, start, dataStart - start);
+                addSegment(segments, true, base.getDataOffset(previous), entry.getCompressedSize());
+                addSegment(
+                        segments,
+                        false,
+                        dataStart + entry.getCompressedSize(),
+                        end - dataStart - entry.getCompressedSize());
+                continue;
+            } else {
+                changed.add(entry.getName());
+            }
+            addSegment(segments, false, start, end - start);
+        }
+        addSegment(segments, false, position, target.size() - position);
+
+        for (JModFile.Entry entry : base.entries()) {
+            if (target.getEntry(entry.getName()) == null) {
+                removed.add(entry.getName());
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Adds the segment or extends the last one if both are adjacent.
+     */
+    private void addSegment(List<Segment> segments, boolean copy, long offset, long length) {
+        if (length == 0) {
+            return;
+        }
+        if (copy) {
+            copiedBytes += length;
+        } else {
+            literalBytes += length;
+        }
+        if (!segments.isEmpty()) {
+            Segment last = segments.get(segments.size() - 1);
+            if (last.copy == copy && last.offset + last.length == offset) {
+                last.length += length;
+                return;
+            }
+        }
+        segments.add(new Segment(copy, offset, length));
+    }
+
+    private static List<JModFile.Entry> sortedByOffset(JModFile jmod) {
+        List<JModFile.Entry> entries = new ArrayList<>(jmod.entries());
+        Collections.sort(entries, new Comparator<JModFile.Entry>() {
+            @Override
+            public int compare(JModFile.Entry o1, JModFile.Entry o2) {
+                return Long.compare(o1.getLocalHeaderOffset(), o2.getLocalHeaderOffset());
+            }
+        });
+        return entries;
+    }
+
+    private static boolean sameContent(JModFile a, long offsetA, JModFile b, long offsetB, long length)
+            throws IOException {
+        try (InputStream inA = a.getRangeInputStream(offsetA, length);
+                InputStream inB = b.getRangeInputStream(offsetB, length)) {
+            byte[] bufferA = new byte[(int) Math.min(BUFFER_SIZE, Math.max(1, length))];
+            byte[] bufferB = new byte[bufferA.length];
+            int n;
+            while ((n = inA.read(bufferA)) > 0) {
+                int read = 0;
+                while (read < n) {
+                    int m = inB.read(bufferB, read, n - read);
+                    if (m < 0) {
+                        return false;
+                    }
+                    read += m;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (bufferA[i] != bufferB[i]) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    static byte[] sha256(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this Java runtime.", e);
+        }
+    }
+
+    private static byte[] readHash(DataInputStream in) throws IOException {
+        byte[] hash = new byte[32];
+        in.readFully(hash);
+        return hash;
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static List<String> readNames(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(in.readUTF());
+        }
+        return names;
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(1, length))];
+        long remaining = length;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0) {
+                throw new IOException("Unexpected end of data, " + remaining + " bytes are missing.");
+            }
+            out.write(buffer, 0, n);
+            remaining -= n;
+        }
+    }
+
+    private static final class Segment {
+        private final boolean copy;
+
+        /**
+         * The offset in the previous file for copied segments, otherwise the offset in the new file.
+         */
+        private final long offset;
+
+        private long length;
+
+        Segment(boolean copy, long offset, long length) {
+            this.copy = copy;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.toolchain.ToolchainManager;
+
+/**
+ * The <code>delta</code> goal creates an entry level delta between the <code>jmod</code> file of a previous release
+ * and the <code>jmod</code> file created by the <code>create</code> goal. The delta contains only the added and
+ * changed entries, the names of the removed entries and the SHA-256 hash of the new file. It can be turned into the
+ * new <code>jmod</code> file on the receiving side via the <code>apply-delta</code> goal.
+ */
+@Mojo(
+        name = "delta",
+        requiresDependencyResolution = ResolutionScope.NONE,
+        defaultPhase = LifecyclePhase.PACKAGE,
+        threadSafe = true)
+public class JModDeltaMojo extends AbstractJModMojo {
+
+    /**
+     * The <code>jmod</code> file of the previous release.
+     */
+    @Parameter(property = "jmod.delta.base", required = true)
+    private File baseJmodFile;
+
+    /**
+     * The <code>jmod</code> file for which the delta is created.
+     */
+    // @formatter:off
+    @Parameter(
+            defaultValue = "${project.build.directory}/jmods/${project.artifactId}.jmod",
+            property = "jmodfile",
+            required = true)
+    // @formatter:on
+    private File jmodFile;
+
+    /**
+     * The delta file which is written.
+     */
+    @Parameter(
+            defaultValue = "${project.build.directory}/jmods/${project.artifactId}.jmod-delta",
+            property = "jmod.delta.file",
+            required = true)
+    private File deltaFile;
+
+    /**
+     * Attach the delta file to the project.
+     */
+    @Parameter(defaultValue = "true", property = "jmod.delta.attach")
+    private boolean attach;
+
+    /**
+     * The classifier which is used to attach the delta file.
+     */
+    @Parameter(defaultValue = "delta", property = "jmod.delta.classifier")
+    private String classifier;
+
+    private final MavenProjectHelper projectHelper;
+
+    @Inject
+    public JModDeltaMojo(ToolchainManager toolchainManager, MavenProjectHelper projectHelper) {
+        super(toolchainManager);
+        this.projectHelper = projectHelper;
+    }
+
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        if (!baseJmodFile.isFile()) {
+            throw new MojoFailureException("Unable to find " + baseJmodFile.getAbsolutePath());
+        }
+        if (!jmodFile.isFile()) {
+            throw new MojoFailureException("Unable to find " + jmodFile.getAbsolutePath());
+        }
+
+        JModDelta delta;
+        phase("create-delta");
+        try (JModOutputLock lock =
+                JModOutputLock.lock(deltaFile.getAbsoluteFile().getParentFile(), getLog())) {
+            delta = JModDelta.create(baseJmodFile, jmodFile, deltaFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to create the delta between " + baseJmodFile.getAbsolutePath() + " and "
+                            + jmodFile.getAbsolutePath() + ": " + e.getMessage(),
+                    e);
+        }
+
+        attribute("jmod.entries.added", delta.getAdded().size());
+        attribute("jmod.entries.changed", delta.getChanged().size());
+        attribute("jmod.entries.removed", delta.getRemoved().size());
+        attribute("jmod.delta.copiedBytes", delta.getCopiedBytes());
+        attribute("jmod.delta.literalBytes", delta.getLiteralBytes());
+        attribute("jmod.delta.bytes", deltaFile.length());
+
+        getLog().info("Created " + deltaFile.getAbsolutePath() + " (" + deltaFile.length() + " bytes) with "
+                + delta.getAdded().size() + " added, " + delta.getChanged().size() + " changed and "
+                + delta.getRemoved().size() + " removed entries; " + delta.getCopiedBytes() + " of "
+                + jmodFile.length() + " bytes are reused from " + baseJmodFile.getName() + ".");
+
+        phase("attach-artifact");
+        if (attach) {
+            projectHelper.attachArtifact(getProject(), "jmod-delta", classifier, deltaFile);
+        }
+    }
+}
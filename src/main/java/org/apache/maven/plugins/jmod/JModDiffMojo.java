@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import javax.inject.Inject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * The <code>diff</code> goal compares two <code>jmod</code> files. The central directories (name, size and CRC-32)
+ * of both files are compared and only the entries with different content are decompressed to show which members of a
+ * class or which lines of a text file have changed. The module descriptors of both files are compared as well.
+ */
+@Mojo(
+        name = "diff",
+        requiresDependencyResolution = ResolutionScope.NONE,
+        defaultPhase = LifecyclePhase.NONE,
+        threadSafe = true)
+public class JModDiffMojo extends AbstractJModMojo {
+
+    private static final String MODULE_INFO_ENTRY = "classes/" + ModuleInfo.MODULE_INFO_CLASS;
+
+    /**
+     * Entries larger than this are only compared by their central directory data.
+     */
+    private static final long MAX_CONTENT_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * The <code>jmod</code> file which is used as the base of the comparison, for example the one of the previous
+     * release.
+     */
+    @Parameter(property = "jmod.diff.base", required = true)
+    private File baseJmodFile;
+
+    /**
+     * The <code>jmod</code> file which is compared with the base.
+     */
+    // @formatter:off
+    @Parameter(
+            defaultValue = "${project.build.directory}/jmods/${project.artifactId}.jmod",
+            property = "jmodfile",
+            required = true)
+    // @formatter:on
+    private File jmodFile;
+
+    /**
+     * If given the differences are additionally written as JSON into this file.
+     */
+    @Parameter(property = "jmod.diff.outputFile")
+    private File diffOutputFile;
+
+    /**
+     * The maximum number of detail lines (changed class members or text lines) which are reported for each changed
+     * entry.
+     */
+    @Parameter(defaultValue = "20", property = "jmod.diff.maxDetails")
+    private int maxDetails;
+
+    @Inject
+    public JModDiffMojo(ToolchainManager toolchainManager) {
+        super(toolchainManager);
+    }
+
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        failIfNotAFile(baseJmodFile);
+        failIfNotAFile(jmodFile);
+
+        phase("read-central-directory");
+        try (JModFile base = JModFile.open(baseJmodFile);
+                JModFile current = JModFile.open(jmodFile)) {
+            List<JModFile.Entry> added = new ArrayList<>();
+            List<JModFile.Entry> removed = new ArrayList<>();
+            List<Change> changed = new ArrayList<>();
+            int unchanged = 0;
+
+            phase("compare-entries");
+            for (JModFile.Entry entry : current.entries()) {
+                JModFile.Entry previous = base.getEntry(entry.getName());
+                if (previous == null) {
+                    added.add(entry);
+                } else if (previous.getCrc() != entry.getCrc() || previous.getSize() != entry.getSize()) {
+                    changed.add(new Change(previous, entry, describeChange(base, previous, current, entry)));
+                } else {
+                    unchanged++;
+                }
+            }
+            for (JModFile.Entry entry : base.entries()) {
+                if (current.getEntry(entry.getName()) == null) {
+                    removed.add(entry);
+                }
+            }
+
+            attribute("jmod.entries.added", added.size());
+            attribute("jmod.entries.removed", removed.size());
+            attribute("jmod.entries.changed", changed.size());
+            attribute("jmod.entries.unchanged", unchanged);
+
+            phase("compare-module-descriptors");
+            List<String> descriptorChanges = diffModuleDescriptors(base, current);
+
+            phase("report");
+            report(added, removed, changed, unchanged, descriptorChanges);
+
+            if (diffOutputFile != null) {
+                writeJson(added, removed, changed, unchanged, descriptorChanges);
+                getLog().info("The differences have been written to " + diffOutputFile.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to compare " + baseJmodFile.getAbsolutePath() + " with " + jmodFile.getAbsolutePath() + ": "
+                            + e.getMessage(),
+                    e);
+        }
+    }
+
+    private void failIfNotAFile(File file) throws MojoFailureException {
+        if (!file.exists() || !file.isFile()) {
+            throw new MojoFailureException("Unable to find " + file.getAbsolutePath());
+        }
+    }
+
+    private List<String> diffModuleDescriptors(JModFile base, JModFile current) throws IOException {
+        JModFile.Entry previous = base.getEntry(MODULE_INFO_ENTRY);
+        JModFile.Entry entry = current.getEntry(MODULE_INFO_ENTRY);
+        if (previous == null || entry == null) {
+            return Collections.emptyList();
+        }
+        return readModuleInfo(current, entry).diff(readModuleInfo(base, previous));
+    }
+
+    private static ModuleInfo readModuleInfo(JModFile jmod, JModFile.Entry entry) throws IOException {
+        Object event = FlightRecorderEvents.MODULE_DESCRIPTOR.begin();
+        ModuleInfo moduleInfo;
+        try (InputStream in = jmod.getInputStream(entry)) {
+            moduleInfo = ModuleInfo.read(in);
+        }
+        FlightRecorderEvents.MODULE_DESCRIPTOR.commit(
+                event,
+                moduleInfo.getName(),
+                jmod.getFile().getAbsolutePath() + "!/" + entry.getName(),
+                entry.getSize());
+        return moduleInfo;
+    }
+
+    private List<String> describeChange(JModFile base, JModFile.Entry previous, JModFile current, JModFile.Entry entry)
+            throws IOException {
+        if (MODULE_INFO_ENTRY.equals(entry.getName())) {
+            // reported separately
+            return Collections.emptyList();
+        }
+        if (previous.getSize() > MAX_CONTENT_SIZE || entry.getSize() > MAX_CONTENT_SIZE) {
+            return Collections.emptyList();
+        }
+        byte[] before = readFully(base, previous);
+        byte[] after = readFully(current, entry);
+
+        if (entry.getName().endsWith(".class")) {
+            try {
+                return diffSets(classMembers(before), classMembers(after), "~ class file changed, same members");
+            } catch (RuntimeException e) {
+                getLog().debug("Unable to read " + entry.getName() + " as class file: " + e.getMessage());
+                return Collections.emptyList();
+            }
+        }
+
+        List<String> beforeLines = textLines(before);
+        List<String> afterLines = textLines(after);
+        if (beforeLines != null && afterLines != null) {
+            return diffLines(beforeLines, afterLines);
+        }
+        return Collections.emptyList();
+    }
+
+    private static byte[] readFully(JModFile jmod, JModFile.Entry entry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) entry.getSize());
+        try (InputStream in = jmod.getInputStream(entry)) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Set<String> classMembers(byte[] classFile) {
+        final Set<String> members = new TreeSet<>();
+        new ClassReader(classFile)
+                .accept(
+                        new ClassVisitor(Opcodes.ASM9) {
+                            @Override
+                            public void visit(
+                                    int version,
+                                    int access,
+                                    String name,
+                                    String signature,
+                                    String superName,
+                                    String[] interfaces) {
+                                members.add("class " + access(access) + name.replace('/', '.'));
+                                if (superName != null) {
+                                    members.add("extends " + superName.replace('/', '.'));
+                                }
+                                for (String i : interfaces) {
+                                    members.add("implements " + i.replace('/', '.'));
+                                }
+                            }
+
+                            @Override
+                            public FieldVisitor visitField(
+                                    int access, String name, String descriptor, String signature, Object value) {
+                                members.add("field " + access(access) + name + ":" + descriptor);
+                                return null;
+                            }
+
+                            @Override
+                            public MethodVisitor visitMethod(
+                                    int access, String name, String descriptor, String signature, String[] exceptions) {
+                                members.add("method " + access(access) + name + descriptor);
+                                return null;
+                            }
+                        },
+                        ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return members;
+    }
+
+    private static String access(int access) {
+        StringBuilder sb = new StringBuilder();
+        if ((access & Opcodes.ACC_PUBLIC) != 0) {
+            sb.append("public ");
+        } else if ((access & Opcodes.ACC_PROTECTED) != 0) {
+            sb.append("protected ");
+        } else if ((access & Opcodes.ACC_PRIVATE) != 0) {
+            sb.append("private ");
+        }
+        if ((access & Opcodes.ACC_STATIC) != 0) {
+            sb.append("static ");
+        }
+        if ((access & Opcodes.ACC_ABSTRACT) != 0) {
+            sb.append("abstract ");
+        }
+        if ((access & Opcodes.ACC_FINAL) != 0) {
+            sb.append("final ");
+        }
+        return sb.toString();
+    }
+
+    private static List<String> diffSets(Set<String> before, Set<String> after, String noDifference) {
+        List<String> details = new ArrayList<>();
+        for (String s : before) {
+            if (!after.contains(s)) {
+                details.add("- " + s);
+            }
+        }
+        for (String s : after) {
+            if (!before.contains(s)) {
+                details.add("+ " + s);
+            }
+        }
+        if (details.isEmpty()) {
+            details.add(noDifference);
+        }
+        return details;
+    }
+
+    /**
+     * @return the lines of the content or <code>null</code> if the content is not UTF-8 encoded text
+     */
+    private static List<String> textLines(byte[] content) {
+        for (byte b : content) {
+            if (b == 0) {
+                return null;
+            }
+        }
+        try {
+            String text = StandardCharsets.UTF_8
+                    .newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(content))
+                    .toString();
+            return Arrays.asList(text.split("\r?\n", -1));
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Line based diff via the longest common subsequence. For very large files only the lines which are missing on
+     * either side are reported.
+     */
+    private static List<String> diffLines(List<String> before, List<String> after) {
+        int n = before.size();
+        int m = after.size();
+        if ((long) n * m > 4_000_000L) {
+            return diffSets(new TreeSet<>(before), new TreeSet<>(after), "~ line order changed");
+        }
+        int[][] lcs = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                lcs[i][j] = before.get(i).equals(after.get(j))
+                        ? lcs[i + 1][j + 1] + 1
+                        : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+        List<String> details = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            if (i < n && j < m && before.get(i).equals(after.get(j))) {
+                i++;
+                j++;
+            } else if (j < m && (i == n || lcs[i][j + 1] >= lcs[i + 1][j])) {
+                details.add("+ " + after.get(j++));
+            } else {
+                details.add("- " + before.get(i++));
+            }
+        }
+        return details;
+    }
+
+    private void report(
+            List<JModFile.Entry> added,
+            List<JModFile.Entry> removed,
+            List<Change> changed,
+            int unchanged,
+            List<String> descriptorChanges) {
+        getLog().info("Comparing " + jmodFile.getAbsolutePath() + " with " + baseJmodFile.getAbsolutePath());
+        if (!descriptorChanges.isEmpty()) {
+            getLog().info("Module descriptor:");
+            logDetails(descriptorChanges);
+        }
+        if (!added.isEmpty()) {
+            getLog().info("Added entries (" + added.size() + "):");
+            for (JModFile.Entry entry : added) {
+                getLog().info("  + " + entry.getName() + " (" + entry.getSize() + " bytes)");
+            }
+        }
+        if (!removed.isEmpty()) {
+            getLog().info("Removed entries (" + removed.size() + "):");
+            for (JModFile.Entry entry : removed) {
+                getLog().info("  - " + entry.getName() + " (" + entry.getSize() + " bytes)");
+            }
+        }
+        if (!changed.isEmpty()) {
+            getLog().info("Changed entries (" + changed.size() + "):");
+            for (Change change : changed) {
+                getLog().info("  ~ " + change.current.getName() + " (" + change.previous.getSize() + " -> "
+                        + change.current.getSize() + " bytes)");
+                logDetails(change.details);
+            }
+        }
+        getLog().info(added.size() + " added, " + removed.size() + " removed, " + changed.size() + " changed, "
+                + unchanged + " unchanged entries.");
+    }
+
+    private void logDetails(List<String> details) {
+        int count = 0;
+        for (String detail : details) {
+            if (count++ == maxDetails) {
+                getLog().info("      ... " + (details.size() - maxDetails) + " more");
+                break;
+            }
+            getLog().info("      " + detail);
+        }
+    }
+
+    private void writeJson(
+            List<JModFile.Entry> added,
+            List<JModFile.Entry> removed,
+            List<Change> changed,
+            int unchanged,
+            List<String> descriptorChanges)
+            throws IOException {
+        try (JsonWriter json = JsonWriter.create(diffOutputFile)) {
+            json.beginObject();
+            json.property("base", baseJmodFile.getAbsolutePath());
+            json.property("jmod", jmodFile.getAbsolutePath());
+            json.property("moduleDescriptor", descriptorChanges);
+            writeEntries(json, "added", added);
+            writeEntries(json, "removed", removed);
+            json.name("changed").beginArray();
+            for (Change change : changed) {
+                json.beginObject()
+                        .property("name", change.current.getName())
+                        .property("previousSize", change.previous.getSize())
+                        .property("size", change.current.getSize())
+                        .property("previousCrc", Long.toHexString(change.previous.getCrc()))
+                        .property("crc", Long.toHexString(change.current.getCrc()))
+                        .property("details", change.details)
+                        .endObject();
+            }
+            json.endArray();
+            json.property("unchanged", unchanged);
+            json.endObject();
+        }
+    }
+
+    private static void writeEntries(JsonWriter json, String name, List<JModFile.Entry> entries) throws IOException {
+        json.name(name).beginArray();
+        for (JModFile.Entry entry : entries) {
+            json.beginObject()
+                    .property("name", entry.getName())
+                    .property("size", entry.getSize())
+                    .endObject();
+        }
+        json.endArray();
+    }
+
+    private static final class Change {
+        private final JModFile.Entry previous;
+
+        private final JModFile.Entry current;
+
+        private final List<String> details;
+
+        Change(JModFile.Entry previous, JModFile.Entry current, List<String> details) {
+            this.previous = previous;
+            this.current = current;
+            this.details = details;
+        }
+    }
+}
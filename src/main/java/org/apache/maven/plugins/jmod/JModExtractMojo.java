@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.toolchain.ToolchainManager;
+
+/**
+ * The <code>extract</code> goal extracts the content of a <code>jmod</code> file into a directory. In contrast to
+ * <code>jmod extract</code> the sections of the <code>jmod</code> file (<code>classes</code>, <code>conf</code>,
+ * <code>lib</code>, <code>bin</code>, <code>include</code>, <code>legal</code> and <code>man</code>) are kept as
+ * directories and can be filtered. The entries are extracted in parallel and files which already exist with the same
+ * size and CRC are not written again.
+ */
+@Mojo(
+        name = "extract",
+        requiresDependencyResolution = ResolutionScope.NONE,
+        defaultPhase = LifecyclePhase.NONE,
+        threadSafe = true)
+public class JModExtractMojo extends AbstractJModMojo {
+
+    private static final String BIN = "bin";
+
+    /**
+     * The name of the jmod file which is extracted.
+     */
+    // @formatter:off
+    @Parameter(
+            defaultValue = "${project.build.directory}/jmods/${project.artifactId}.jmod",
+            property = "jmodfile",
+            required = true)
+    // @formatter:on
+    private File jmodFile;
+
+    /**
+     * The directory into which the content of the jmod file is extracted. Each section of the jmod file becomes a sub
+     * directory, for example <code>classes</code> or <code>bin</code>.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/jmod", property = "jmod.extract.directory", required = true)
+    private File extractDirectory;
+
+    /**
+     * The sections which are extracted. If nothing is given all sections are extracted.
+     *
+     * <pre>
+     * &lt;includeSections&gt;
+     *   &lt;includeSection&gt;classes&lt;/includeSection&gt;
+     *   &lt;includeSection&gt;lib&lt;/includeSection&gt;
+     * &lt;/includeSections&gt;
+     * </pre>
+     */
+    @Parameter(property = "jmod.extract.includeSections")
+    private List<String> includeSections;
+
+    /**
+     * The sections which are not extracted, for example <code>legal</code> or <code>man</code>.
+     */
+    @Parameter(property = "jmod.extract.excludeSections")
+    private List<String> excludeSections;
+
+    /**
+     * The number of threads used for the extraction. If the value is <code>0</code> or less the number of available
+     * processors is used.
+     */
+    @Parameter(defaultValue = "0", property = "jmod.extract.threads")
+    private int threads;
+
+    @Inject
+    public JModExtractMojo(ToolchainManager toolchainManager) {
+        super(toolchainManager);
+    }
+
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        if (!jmodFile.exists() || !jmodFile.isFile()) {
+            throw new MojoFailureException("Unable to find " + jmodFile.getAbsolutePath());
+        }
+
+        phase("read-central-directory");
+        try (JModFile jmod = JModFile.open(jmodFile)) {
+            List<JModFile.Entry> selected = new ArrayList<>();
+            for (JModFile.Entry entry : jmod.entries()) {
+                if (!entry.isDirectory() && isSectionSelected(entry.getSection())) {
+                    selected.add(entry);
+                }
+            }
+
+            getLog().info("Extracting " + selected.size() + " entries of " + jmodFile.getAbsolutePath() + " to "
+                    + extractDirectory.getAbsolutePath());
+
+            phase("extract");
+            attribute("jmod.entries", selected.size());
+            int unchanged = extract(jmod, selected);
+            attribute("jmod.entries.unchanged", unchanged);
+
+            getLog().info("Extracted " + (selected.size() - unchanged) + " entries, " + unchanged
+                    + " entries were already up to date.");
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to extract " + jmodFile.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private int extract(final JModFile jmod, List<JModFile.Entry> selected) throws IOException, MojoExecutionException {
+        final String root = extractDirectory.getCanonicalPath() + File.separator;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(poolSize, selected.size())));
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(selected.size());
+            for (final JModFile.Entry entry : selected) {
+                final File target = new File(extractDirectory, entry.getName());
+                if (!target.getCanonicalPath().startsWith(root)) {
+                    throw new MojoExecutionException("The entry " + entry.getName() + " of "
+                            + jmodFile.getAbsolutePath() + " would be extracted outside of " + root);
+                }
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws IOException {
+                        return extractEntry(jmod, entry, target);
+                    }
+                }));
+            }
+
+            int unchanged = 0;
+            for (Future<Boolean> result : results) {
+                if (!result.get()) {
+                    unchanged++;
+                }
+            }
+            return unchanged;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Extraction of " + jmodFile.getAbsolutePath() + " was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new MojoExecutionException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the file has been written, <code>false</code> if it was already up to date
+     */
+    private boolean extractEntry(JModFile jmod, JModFile.Entry entry, File target) throws IOException {
+        boolean executable = BIN.equals(entry.getSection());
+        if (isUpToDate(entry, target)) {
+            if (executable && !target.canExecute()) {
+                target.setExecutable(true, false);
+            }
+            return false;
+        }
+
+        File parent = target.getParentFile();
+        if (!parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Unable to create directory " + parent.getAbsolutePath());
+        }
+
+        Object event = FlightRecorderEvents.ENTRY_WRITTEN.begin();
+        try (InputStream in = jmod.getInputStream(entry);
+                OutputStream out = new FileOutputStream(target)) {
+            byte[] buffer = new byte[(int) Math.min(64 * 1024, Math.max(entry.getSize(), 1))];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        target.setLastModified(entry.getTime());
+        if (executable) {
+            target.setExecutable(true, false);
+        }
+        FlightRecorderEvents.ENTRY_WRITTEN.commit(
+                event, entry.getName(), entry.getSection(), entry.getSize(), entry.getCompressedSize());
+        return true;
+    }
+
+    private boolean isUpToDate(JModFile.Entry entry, File target) throws IOException {
+        if (!target.isFile() || target.length() != entry.getSize()) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream in = new FileInputStream(target)) {
+            byte[] buffer = new byte[(int) Math.min(64 * 1024, Math.max(entry.getSize(), 1))];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue() == entry.getCrc();
+    }
+
+    private boolean isSectionSelected(String section) {
+        if (includeSections != null && !includeSections.isEmpty() && !containsSection(includeSections, section)) {
+            return false;
+        }
+        return excludeSections == null || !containsSection(excludeSections, section);
+    }
+
+    private boolean containsSection(List<String> sections, String section) {
+        for (String s : sections) {
+            String name = s.trim();
+            if (name.endsWith("/")) {
+                name = name.substring(0, name.length() - 1);
+            }
+            if (name.equals(section)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
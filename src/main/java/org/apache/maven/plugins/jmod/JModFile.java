@@ -0,0 +1,546 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only view of a <code>jmod</code> file. A <code>jmod</code> file is a zip file prefixed with the four byte
+ * header <code>JM 0x01 0x00</code>, which is why tools like <code>unzip</code> are not always able to handle it.
+ * <p>
+ * Only the central directory is parsed on opening, the content of the entries is read with positional reads of the
+ * file channel, so it can be read concurrently from several threads. All offsets and sizes are checked against the
+ * file size before they are used.
+ * The zip64 extensions are supported for entries and files beyond 4 GB and for more than 65535 entries.
+ * </p>
+ */
+final class JModFile implements Closeable {
+
+    static final byte[] MAGIC = {'J', 'M', 1, 0};
+
+    static final int STORED = 0;
+
+    static final int DEFLATED = 8;
+
+    private static final int END_HEADER_SIGNATURE = 0x06054b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int ZIP64_END_HEADER_SIGNATURE = 0x06064b50;
+
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int END_HEADER_SIZE = 22;
+
+    private static final int ZIP64_END_HEADER_SIZE = 56;
+
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+
+    /**
+     * The id of the zip64 extended information extra field.
+     */
+    static final int ZIP64_EXTRA_ID = 0x0001;
+
+    /**
+     * The value of a size or offset field whose actual value is in the zip64 extra field.
+     */
+    static final long ZIP64_MAGIC = 0xffffffffL;
+
+    private static final int CENTRAL_HEADER_SIZE = 46;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final Map<String, Entry> entries;
+
+    private long centralDirectoryStart;
+
+    private JModFile(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+
+            byte[] magic = new byte[MAGIC.length];
+            readFully(0, magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new ZipException(file + " is not a jmod file: invalid header.");
+                }
+            }
+            this.entries = readCentralDirectory();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open the given <code>jmod</code> file and read its central directory.
+     *
+     * @param file the <code>jmod</code> file
+     * @return the opened file which has to be closed by the caller
+     * @throws IOException in case the file can not be read or is not a <code>jmod</code> file
+     */
+    static JModFile open(File file) throws IOException {
+        return new JModFile(file);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return the entries in the order of the central directory
+     */
+    List<Entry> entries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries.values()));
+    }
+
+    /**
+     * @param name the full name of the entry, for example <code>classes/module-info.class</code>
+     * @return the entry or <code>null</code> if there is no such entry
+     */
+    Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * @param entry the entry
+     * @return a stream of the uncompressed content of the entry
+     * @throws IOException in case of an unsupported compression method
+     */
+    InputStream getInputStream(Entry entry) throws IOException {
+        InputStream raw = getRawInputStream(entry);
+        if (entry.getMethod() == STORED) {
+            return raw;
+        }
+        if (entry.getMethod() != DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.getMethod() + " of entry "
+                    + entry.getName() + " in " + file);
+        }
+        final Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(raw, inflater, (int) Math.min(BUFFER_SIZE, entry.getCompressedSize() + 1)) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    inflater.end();
+                    super.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the uncompressed content of a small entry, like the <code>module-info.class</code>
+     */
+    byte[] readAllBytes(Entry entry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(BUFFER_SIZE, entry.getSize()));
+        try (InputStream in = getInputStream(entry)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the offset of the central directory, which is the end of the last entry
+     */
+    long getCentralDirectoryStart() {
+        return centralDirectoryStart;
+    }
+
+    /**
+     * @param position the offset within the file
+     * @param length the number of bytes
+     * @return a stream of the given range of the file
+     */
+    InputStream getRangeInputStream(long position, long length) throws IOException {
+        if (position < 0 || length < 0 || position + length > size) {
+            throw new ZipException("Invalid range " + position + "+" + length + " of " + file);
+        }
+        return new RangeInputStream(position, length);
+    }
+
+    /**
+     * @param entry the entry
+     * @return a stream of the content of the entry as it is stored in the file, i.e. still compressed
+     * @throws IOException in case the local header of the entry is invalid
+     */
+    InputStream getRawInputStream(Entry entry) throws IOException {
+        return new RangeInputStream(getDataOffset(entry), entry.getCompressedSize());
+    }
+
+    /**
+     * The offset of the first byte of the entry data which follows the variable sized local header.
+     */
+    long getDataOffset(Entry entry) throws IOException {
+        ByteBuffer header = read(entry.getLocalHeaderOffset(), LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for entry " + entry.getName() + " in " + file);
+        }
+        long dataOffset = entry.getLocalHeaderOffset()
+                + LOCAL_HEADER_SIZE
+                + (header.getShort(26) & 0xffff)
+                + (header.getShort(28) & 0xffff);
+        if (dataOffset + entry.getCompressedSize() > centralDirectoryStart) {
+            throw new ZipException("The data of entry " + entry.getName() + " exceeds the entries of " + file);
+        }
+        return dataOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Map<String, Entry> readCentralDirectory() throws IOException {
+        long endHeaderOffset = findEndHeader();
+        ByteBuffer end = read(endHeaderOffset, END_HEADER_SIZE);
+        long count = end.getShort(10) & 0xffff;
+        long centralDirectorySize = end.getInt(12) & 0xffffffffL;
+        long centralDirectoryOffset = end.getInt(16) & 0xffffffffL;
+        long centralDirectoryEnd = endHeaderOffset;
+
+        long zip64EndHeaderOffset = findZip64EndHeader(endHeaderOffset);
+        if (zip64EndHeaderOffset >= 0) {
+            ByteBuffer zip64End = read(zip64EndHeaderOffset, ZIP64_END_HEADER_SIZE);
+            count = zip64End.getLong(32);
+            centralDirectorySize = zip64End.getLong(40);
+            centralDirectoryOffset = zip64End.getLong(48);
+            centralDirectoryEnd = zip64EndHeaderOffset;
+        }
+
+        // The offsets in the central directory are relative to the start of the zip data, i.e. behind the header.
+        centralDirectoryStart = centralDirectoryEnd - centralDirectorySize;
+        long base = centralDirectoryStart - centralDirectoryOffset;
+        if (base < 0
+                || centralDirectoryStart < MAGIC.length
+                || centralDirectorySize > Integer.MAX_VALUE
+                || count > centralDirectorySize / CENTRAL_HEADER_SIZE) {
+            throw new ZipException("Invalid central directory in " + file);
+        }
+
+        ByteBuffer cd = read(centralDirectoryStart, (int) centralDirectorySize);
+        Map<String, Entry> result = new LinkedHashMap<>((int) count * 2);
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            if (pos + CENTRAL_HEADER_SIZE > centralDirectorySize || cd.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header in " + file);
+            }
+            int nameLength = cd.getShort(pos + 28) & 0xffff;
+            int extraLength = cd.getShort(pos + 30) & 0xffff;
+            int commentLength = cd.getShort(pos + 32) & 0xffff;
+            if (pos + CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength > centralDirectorySize) {
+                throw new ZipException("Invalid central directory header in " + file);
+            }
+            byte[] name = new byte[nameLength];
+            ((ByteBuffer) cd.duplicate().position(pos + CENTRAL_HEADER_SIZE)).get(name);
+
+            Entry entry = new Entry(new String(name, StandardCharsets.UTF_8), cd, pos, base);
+            if (entry.getLocalHeaderOffset() < 0) {
+                throw new ZipException("Invalid zip64 extra field of entry " + entry.getName() + " in " + file);
+            }
+            if (entry.getLocalHeaderOffset() + LOCAL_HEADER_SIZE > centralDirectoryStart
+                    || entry.getCompressedSize() > centralDirectoryStart - entry.getLocalHeaderOffset()) {
+                throw new ZipException("Invalid offset or size of entry " + entry.getName() + " in " + file);
+            }
+            result.put(entry.getName(), entry);
+            pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return result;
+    }
+
+    private long findEndHeader() throws IOException {
+        // the end header is followed by a comment of at most 65535 bytes
+        long start = Math.max(MAGIC.length, size - END_HEADER_SIZE - 0xffff);
+        int length = (int) (size - start);
+        if (length < END_HEADER_SIZE) {
+            throw new ZipException(file + " is not a jmod file: too short.");
+        }
+        ByteBuffer tail = read(start, length);
+        for (int pos = length - END_HEADER_SIZE; pos >= 0; pos--) {
+            if (tail.getInt(pos) == END_HEADER_SIGNATURE) {
+                return start + pos;
+            }
+        }
+        throw new ZipException(file + " is not a jmod file: no central directory found.");
+    }
+
+    /**
+     * The zip64 end header is located by the locator in front of the end header. Its offset is relative to the zip
+     * data like all other offsets, but some writers record it relative to the file, so both are tried.
+     *
+     * @return the offset of the zip64 end header, or <code>-1</code> if there is none
+     */
+    private long findZip64EndHeader(long endHeaderOffset) throws IOException {
+        long locatorOffset = endHeaderOffset - ZIP64_LOCATOR_SIZE;
+        if (locatorOffset < MAGIC.length || read(locatorOffset, 4).getInt(0) != ZIP64_LOCATOR_SIGNATURE) {
+            return -1;
+        }
+        long offset = read(locatorOffset + 8, 8).getLong(0);
+        for (long candidate : new long[] {offset + MAGIC.length, offset}) {
+            if (candidate >= MAGIC.length
+                    && candidate + ZIP64_END_HEADER_SIZE <= locatorOffset
+                    && read(candidate, 4).getInt(0) == ZIP64_END_HEADER_SIGNATURE) {
+                return candidate;
+            }
+        }
+        throw new ZipException("Invalid zip64 end header in " + file);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        readFully(position, bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void readFully(long position, byte[] bytes) throws IOException {
+        readFully(position, bytes, 0, bytes.length);
+    }
+
+    private void readFully(long position, byte[] bytes, int offset, int length) throws IOException {
+        if (position < 0 || position + length > size) {
+            throw new ZipException("Unexpected end of " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - offset) < 0) {
+                throw new ZipException("Unexpected end of " + file);
+            }
+        }
+    }
+
+    /**
+     * Stream over a range of the file. Each stream keeps its own position, so several streams can be used
+     * concurrently.
+     */
+    private final class RangeInputStream extends InputStream {
+        private long position;
+
+        private long remaining;
+
+        RangeInputStream(long position, long length) {
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = (int) Math.min(len, remaining);
+            readFully(position, b, off, n);
+            position += n;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, remaining));
+            position += skipped;
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, remaining);
+        }
+    }
+
+    /**
+     * An entry of the central directory.
+     */
+    static final class Entry {
+        private final String name;
+
+        private final int flags;
+
+        private final int method;
+
+        private final long dosTime;
+
+        private final long crc;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long localHeaderOffset;
+
+        /**
+         * @param name the name of the entry
+         * @param cd the central directory
+         * @param pos the position of the central directory header of this entry
+         * @param base the offset of the zip data within the file
+         */
+        Entry(String name, ByteBuffer cd, int pos, long base) {
+            this.name = name;
+            this.flags = cd.getShort(pos + 8) & 0xffff;
+            this.method = cd.getShort(pos + 10) & 0xffff;
+            this.dosTime = cd.getInt(pos + 12) & 0xffffffffL;
+            this.crc = cd.getInt(pos + 16) & 0xffffffffL;
+            long compressedSize = cd.getInt(pos + 20) & 0xffffffffL;
+            long size = cd.getInt(pos + 24) & 0xffffffffL;
+            long offset = cd.getInt(pos + 42) & 0xffffffffL;
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || offset == ZIP64_MAGIC) {
+                // the extra field holds the values which do not fit, in this order
+                int extra = pos + CENTRAL_HEADER_SIZE + (cd.getShort(pos + 28) & 0xffff);
+                int extraEnd = extra + (cd.getShort(pos + 30) & 0xffff);
+                while (extra + 4 <= extraEnd) {
+                    int length = cd.getShort(extra + 2) & 0xffff;
+                    if ((cd.getShort(extra) & 0xffff) == ZIP64_EXTRA_ID) {
+                        int field = extra + 4;
+                        int fieldEnd = Math.min(field + length, extraEnd);
+                        if (size == ZIP64_MAGIC && field + 8 <= fieldEnd) {
+                            size = cd.getLong(field);
+                            field += 8;
+                        }
+                        if (compressedSize == ZIP64_MAGIC && field + 8 <= fieldEnd) {
+                            compressedSize = cd.getLong(field);
+                            field += 8;
+                        }
+                        if (offset == ZIP64_MAGIC && field + 8 <= fieldEnd) {
+                            offset = cd.getLong(field);
+                        }
+                        break;
+                    }
+                    extra += 4 + length;
+                }
+            }
+            this.compressedSize = compressedSize;
+            this.size = size;
+            // a negative offset marks an invalid entry
+            this.localHeaderOffset = size < 0 || compressedSize < 0 || offset < 0 ? -1 : base + offset;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the section of the entry, for example <code>classes</code>, <code>conf</code> or <code>bin</code>
+         */
+        String getSection() {
+            int index = name.indexOf('/');
+            return index < 0 ? "" : name.substring(0, index);
+        }
+
+        /**
+         * @return the name of the entry without the leading section
+         */
+        String getPath() {
+            return name.substring(name.indexOf('/') + 1);
+        }
+
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        int getFlags() {
+            return flags;
+        }
+
+        int getMethod() {
+            return method;
+        }
+
+        long getDosTime() {
+            return dosTime;
+        }
+
+        /**
+         * @return the modification time in milliseconds since the epoch
+         */
+        long getTime() {
+            Calendar calendar = Calendar.getInstance();
+            calendar.clear();
+            calendar.set(
+                    (int) ((dosTime >> 25) & 0x7f) + 1980,
+                    (int) ((dosTime >> 21) & 0x0f) - 1,
+                    (int) (dosTime >> 16) & 0x1f,
+                    (int) (dosTime >> 11) & 0x1f,
+                    (int) (dosTime >> 5) & 0x3f,
+                    (int) (dosTime << 1) & 0x3e);
+            return calendar.getTimeInMillis();
+        }
+
+        long getCrc() {
+            return crc;
+        }
+
+        long getCompressedSize() {
+            return compressedSize;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLocalHeaderOffset() {
+            return localHeaderOffset;
+        }
+    }
+}
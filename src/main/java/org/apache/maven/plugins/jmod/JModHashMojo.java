@@ -41,7 +41,11 @@ import org.apache.maven.toolchain.ToolchainManager;
  * @author Karl Heinz Marbaise <a href="mailto:khmarbaise@apache.org">khmarbaise@apache.org</a>
  */
 // TODO: Reconsider resolution scope, phase ?
-@Mojo(name = "hash", requiresDependencyResolution = ResolutionScope.COMPILE, defaultPhase = LifecyclePhase.PACKAGE)
+@Mojo(
+        name = "hash",
+        requiresDependencyResolution = ResolutionScope.COMPILE,
+        defaultPhase = LifecyclePhase.PACKAGE,
+        threadSafe = true)
 public class JModHashMojo extends AbstractJModMojo {
 
     /**
@@ -89,10 +93,12 @@ public class JModHashMojo extends AbstractJModMojo {
         super(toolchainManager);
     }
 
-    public void execute() throws MojoExecutionException, MojoFailureException {
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
 
         String jModExecutable;
         try {
+            phase("toolchain");
             jModExecutable = getJModExecutable();
         } catch (IOException e) {
             throw new MojoFailureException("Unable to find jmod command: " + e.getMessage(), e);
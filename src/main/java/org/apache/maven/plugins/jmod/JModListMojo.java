@@ -37,7 +37,11 @@ import org.apache.maven.toolchain.ToolchainManager;
  *
  * @author Karl Heinz Marbaise <a href="mailto:khmarbaise@apache.org">khmarbaise@apache.org</a>
  */
-@Mojo(name = "list", requiresDependencyResolution = ResolutionScope.NONE, defaultPhase = LifecyclePhase.NONE)
+@Mojo(
+        name = "list",
+        requiresDependencyResolution = ResolutionScope.NONE,
+        defaultPhase = LifecyclePhase.NONE,
+        threadSafe = true)
 public class JModListMojo extends AbstractJModMojo {
 
     @Parameter(defaultValue = "${project.build.directory}", required = true, readonly = true)
@@ -59,8 +63,10 @@ public class JModListMojo extends AbstractJModMojo {
         super(toolchainManager);
     }
 
-    public void execute() throws MojoExecutionException, MojoFailureException {
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
         try {
+            phase("toolchain");
             String jModExecutable = getJModExecutable();
             getLog().debug("Toolchain in maven-jmod-plugin: jmod [ " + jModExecutable + " ]");
 
@@ -68,12 +74,23 @@ public class JModListMojo extends AbstractJModMojo {
             cmd.setExecutable(jModExecutable);
 
             getLog().info("The following files are contained in the module file " + jmodFile.getAbsolutePath());
+            phase("jmod");
+            attribute("jmod.file.bytes", jmodFile.length());
             executeCommand(cmd, outputDirectory);
         } catch (IOException e) {
             throw new MojoFailureException("Unable to find jmod command: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * The output of <code>jmod</code> is the result of this goal and is read from the log, so the summary is not
+     * appended to it. The timings are still written to the timings directory.
+     */
+    @Override
+    protected void logTimings(String summary) {
+        // nothing
+    }
+
     private Commandline createJModListCommandLine() throws MojoFailureException {
         if (!jmodFile.exists() || !jmodFile.isFile()) {
             throw new MojoFailureException("Unable to find " + jmodFile.getAbsolutePath());
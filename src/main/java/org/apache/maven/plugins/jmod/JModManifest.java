@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The content of a <code>jmod</code> file: every entry with its section, the input it has been taken from, its size
+ * and its SHA-256. The entries are read from the central directory. If the plugin has written the file, the digests
+ * have been computed by the {@link JModWriter} on the way. Otherwise they are computed from the inputs, which is the
+ * data the <code>jmod</code> tool has just compressed: the CRC of each input is compared with the one of its entry,
+ * only entries which differ from their input, like the <code>module-info.class</code> which the tool extends, are
+ * read from the <code>jmod</code> file.
+ */
+final class JModManifest {
+
+    private static final String CLASSES = "classes";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File jmodFile;
+
+    private final List<Item> items = new ArrayList<>();
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final MessageDigest sha256;
+
+    private final CRC32 crc = new CRC32();
+
+    private int readFromJmod;
+
+    private JModManifest(File jmodFile) throws IOException {
+        this.jmodFile = jmodFile;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @param jmodFile the created jmod file
+     * @param classPath the elements which have been given via <code>--class-path</code>, each mapped to the element
+     *            which is reported as the source of its entries, can be empty
+     * @param directories the directories of the other sections by section, for example <code>conf</code>
+     * @param entryDigests the SHA-256 of the entries by name if the plugin has written the file, otherwise
+     *            <code>null</code>
+     * @return the manifest
+     * @throws IOException in case the jmod file or an input can not be read
+     */
+    static JModManifest create(
+            File jmodFile,
+            Map<String, String> classPath,
+            Map<String, List<String>> directories,
+            Map<String, String> entryDigests)
+            throws IOException {
+        JModManifest manifest = new JModManifest(jmodFile);
+        Map<String, String> sources = new HashMap<>();
+        Map<String, ZipFile> jars = new LinkedHashMap<>();
+        try (JModFile jmod = JModFile.open(jmodFile)) {
+            for (String element : classPath.keySet()) {
+                File file = new File(element);
+                if (file.isDirectory()) {
+                    addDirectory(sources, CLASSES + '/', element, file, "");
+                } else if (file.isFile()) {
+                    ZipFile jar = new ZipFile(file);
+                    jars.put(element, jar);
+                    Enumeration<? extends ZipEntry> zipEntries = jar.entries();
+                    while (zipEntries.hasMoreElements()) {
+                        ZipEntry zipEntry = zipEntries.nextElement();
+                        String name = CLASSES + '/' + zipEntry.getName();
+                        if (!zipEntry.isDirectory() && !sources.containsKey(name)) {
+                            sources.put(name, element);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<String, List<String>> section : directories.entrySet()) {
+                for (String directory : section.getValue()) {
+                    addDirectory(sources, section.getKey() + '/', directory, new File(directory), "");
+                }
+            }
+
+            for (JModFile.Entry entry : jmod.entries()) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String source = sources.get(entry.getName());
+                String sha = entryDigests != null ? entryDigests.get(entry.getName()) : null;
+                if (sha == null) {
+                    sha = manifest.digest(jmod, entry, source, jars);
+                }
+                String reported = classPath.get(source);
+                manifest.items.add(new Item(
+                        entry.getName(),
+                        entry.getSection(),
+                        reported != null ? reported : source,
+                        entry.getSize(),
+                        sha));
+            }
+        } finally {
+            for (ZipFile jar : jars.values()) {
+                jar.close();
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Map each entry name to the first directory containing it, which is the one <code>jmod</code> takes the content
+     * from.
+     */
+    private static void addDirectory(
+            Map<String, String> sources, String section, String element, File directory, String prefix) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String path = prefix + file.getName();
+            if (file.isDirectory()) {
+                addDirectory(sources, section, element, file, path + "/");
+            } else if (!sources.containsKey(section + path)) {
+                sources.put(section + path, element);
+            }
+        }
+    }
+
+    /**
+     * @return the SHA-256 of the entry, from its input if it is unchanged, otherwise from the jmod file
+     */
+    private String digest(JModFile jmod, JModFile.Entry entry, String source, Map<String, ZipFile> jars)
+            throws IOException {
+        String sha = null;
+        if (source != null) {
+            ZipFile jar = jars.get(source);
+            if (jar != null) {
+                ZipEntry zipEntry = jar.getEntry(entry.getPath());
+                if (zipEntry != null) {
+                    try (InputStream in = jar.getInputStream(zipEntry)) {
+                        sha = digest(in, entry);
+                    }
+                }
+            } else {
+                File file = new File(source, entry.getPath());
+                if (file.length() == entry.getSize()) {
+                    try (InputStream in = new FileInputStream(file)) {
+                        sha = digest(in, entry);
+                    }
+                }
+            }
+        }
+        if (sha == null) {
+            try (InputStream in = jmod.getInputStream(entry)) {
+                sha = digest(in, entry);
+            }
+            readFromJmod++;
+            if (sha == null) {
+                throw new IOException("The entry " + entry.getName() + " of " + jmodFile + " is corrupt.");
+            }
+        }
+        return sha;
+    }
+
+    /**
+     * @return the SHA-256 of the content, or <code>null</code> if the content is not the one of the entry
+     */
+    private String digest(InputStream in, JModFile.Entry entry) throws IOException {
+        sha256.reset();
+        crc.reset();
+        long size = 0;
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            sha256.update(buffer, 0, n);
+            crc.update(buffer, 0, n);
+            size += n;
+        }
+        if (size != entry.getSize() || crc.getValue() != entry.getCrc()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : sha256.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the number of entries
+     */
+    int getEntries() {
+        return items.size();
+    }
+
+    /**
+     * @return the number of entries whose digest has been computed from the jmod file, because they differ from
+     *         their input
+     */
+    int getReadFromJmod() {
+        return readFromJmod;
+    }
+
+    /**
+     * Write the manifest as JSON.
+     *
+     * @param manifestFile the file to write
+     * @throws IOException in case of a failure writing the file
+     */
+    void write(File manifestFile) throws IOException {
+        try (JsonWriter json = JsonWriter.create(manifestFile)) {
+            json.beginObject();
+            json.property("jmod", jmodFile.getAbsolutePath());
+            json.name("entries").beginArray();
+            for (Item item : items) {
+                json.beginObject()
+                        .property("name", item.name)
+                        .property("section", item.section)
+                        .property("source", item.source)
+                        .property("size", item.size)
+                        .property("sha256", item.sha256)
+                        .endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    /**
+     * An entry of the manifest.
+     */
+    private static final class Item {
+        private final String name;
+
+        private final String section;
+
+        private final String source;
+
+        private final long size;
+
+        private final String sha256;
+
+        Item(String name, String section, String source, long size, String sha256) {
+            this.name = name;
+            this.section = section;
+            this.source = source;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+    }
+}
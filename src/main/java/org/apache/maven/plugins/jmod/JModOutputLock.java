@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * An exclusive lock on an output directory like <code>target/jmods</code>, held while <code>jmod</code> files are
+ * written into it. Executions of a parallel build (<code>mvn -T</code>) are serialized via a lock per directory in
+ * this JVM, other processes via a file lock on <code>&lt;directory&gt;.lock</code> next to the directory. The lock
+ * file is not put into the directory itself, which can be on the module path of other modules.
+ */
+final class JModOutputLock implements Closeable {
+
+    private static final ConcurrentMap<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock;
+
+    private final RandomAccessFile file;
+
+    private final FileLock fileLock;
+
+    private JModOutputLock(ReentrantLock lock, RandomAccessFile file, FileLock fileLock) {
+        this.lock = lock;
+        this.file = file;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Lock a directory, waiting for other executions which hold the lock.
+     *
+     * @param directory the directory, which is created if it does not exist
+     * @param log the log to tell about waiting for the lock
+     * @return the lock, which must be closed
+     * @throws IOException in case the directory or the lock file can not be created
+     */
+    static JModOutputLock lock(File directory, Log log) throws IOException {
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Unable to create directory " + directory.getAbsolutePath());
+        }
+        File canonical = directory.getCanonicalFile();
+        ReentrantLock lock = LOCKS.get(canonical.getPath());
+        if (lock == null) {
+            ReentrantLock created = new ReentrantLock();
+            lock = LOCKS.putIfAbsent(canonical.getPath(), created);
+            if (lock == null) {
+                lock = created;
+            }
+        }
+        if (!lock.tryLock()) {
+            log.info("Waiting for another execution which writes to " + canonical);
+            lock.lock();
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(new File(canonical.getParentFile(), canonical.getName() + ".lock"), "rw");
+            FileChannel channel = file.getChannel();
+            FileLock fileLock = channel.tryLock();
+            if (fileLock == null) {
+                log.info("Waiting for another process which writes to " + canonical);
+                fileLock = channel.lock();
+            }
+            return new JModOutputLock(lock, file, fileLock);
+        } catch (IOException | RuntimeException e) {
+            if (file != null) {
+                file.close();
+            }
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            fileLock.release();
+            file.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
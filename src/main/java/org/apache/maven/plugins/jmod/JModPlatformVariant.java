@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Writes a platform specific variant of a <code>jmod</code> file: the compressed data of the shared sections is
+ * copied, the native libraries and commands of the platform are compressed, and the target platform is replaced in the
+ * <code>ModuleTarget</code> attribute of the module descriptor, which is what <code>jmod --target-platform</code>
+ * records. The source file can be read by several variants at the same time.
+ */
+final class JModPlatformVariant {
+
+    private static final String BIN = "bin/";
+
+    private static final String LIB = "lib/";
+
+    private int copied;
+
+    private int compressed;
+
+    private JModPlatformVariant() {}
+
+    /**
+     * @return the number of entries which have been copied from the source file
+     */
+    int getCopied() {
+        return copied;
+    }
+
+    /**
+     * @return the number of entries which have been compressed
+     */
+    int getCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Write a variant of the source file.
+     *
+     * @param source the <code>jmod</code> file with the shared sections
+     * @param jmodFile the variant, which is replaced
+     * @param targetPlatform the target platform, <code>null</code> keeps the one of the source file
+     * @param cmds the entries of the <code>bin</code> section by name, <code>null</code> keeps the ones of the source
+     * @param libs the entries of the <code>lib</code> section by name, <code>null</code> keeps the ones of the source
+     * @param checksums the digests which are updated with the content of the variant, or <code>null</code>
+     * @return the summary of the variant
+     * @throws IOException in case the variant can not be written
+     */
+    static JModPlatformVariant write(
+            JModFile source,
+            File jmodFile,
+            String targetPlatform,
+            Map<String, File> cmds,
+            Map<String, File> libs,
+            JModChecksums checksums)
+            throws IOException {
+        JModPlatformVariant variant = new JModPlatformVariant();
+        File tmp = new File(jmodFile.getParentFile(), jmodFile.getName() + ".tmp");
+        try {
+            try (JModWriter writer = new JModWriter(tmp, checksums, null)) {
+                for (JModFile.Entry entry : source.entries()) {
+                    String name = entry.getName();
+                    if (cmds != null && name.startsWith(BIN) || libs != null && name.startsWith(LIB)) {
+                        continue;
+                    }
+                    if (targetPlatform != null && name.equals(JModUpdate.MODULE_INFO)) {
+                        byte[] moduleInfo =
+                                ModuleInfo.withAttributes(source.readAllBytes(entry), null, null, targetPlatform);
+                        writer.compress(name, source.getFile().lastModified(), moduleInfo);
+                    } else {
+                        writer.copy(source, entry);
+                    }
+                }
+                if (cmds != null) {
+                    for (Map.Entry<String, File> cmd : cmds.entrySet()) {
+                        writer.compress(cmd.getKey(), cmd.getValue());
+                    }
+                }
+                if (libs != null) {
+                    for (Map.Entry<String, File> lib : libs.entrySet()) {
+                        writer.compress(lib.getKey(), lib.getValue());
+                    }
+                }
+                writer.finish();
+                variant.copied = writer.getCopied();
+                variant.compressed = writer.getCompressed();
+            }
+            Files.move(tmp.toPath(), jmodFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+        return variant;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Breakdown of a <code>jmod</code> file by section, largest entries and the class path elements the entries of the
+ * <code>classes</code> section came from. Only the central directory of the <code>jmod</code> file is read.
+ */
+final class JModSizeReport {
+
+    /**
+     * The sections of a jmod file in the order <code>jmod create</code> writes them.
+     */
+    static final List<String> SECTIONS =
+            Collections.unmodifiableList(Arrays.asList("classes", "conf", "include", "legal", "lib", "bin", "man"));
+
+    private static final String CLASSES = "classes";
+
+    private static final String UNKNOWN_ORIGIN = "(unknown)";
+
+    private final File jmodFile;
+
+    private final long fileSize;
+
+    private final Map<String, Totals> sections = new LinkedHashMap<>();
+
+    private final Map<String, Totals> classPath = new LinkedHashMap<>();
+
+    private final Totals total = new Totals();
+
+    private final List<JModFile.Entry> entries;
+
+    private JModSizeReport(File jmodFile, long fileSize, List<JModFile.Entry> entries) {
+        this.jmodFile = jmodFile;
+        this.fileSize = fileSize;
+        this.entries = entries;
+        for (String section : SECTIONS) {
+            sections.put(section, new Totals());
+        }
+    }
+
+    /**
+     * @param jmodFile the created jmod file
+     * @param classPathElements the elements which have been given via <code>--class-path</code>, can be empty
+     * @return the report
+     * @throws IOException in case the jmod file or a class path element can not be read
+     */
+    static JModSizeReport analyze(File jmodFile, List<String> classPathElements) throws IOException {
+        JModSizeReport report;
+        try (JModFile jmod = JModFile.open(jmodFile)) {
+            report = new JModSizeReport(jmodFile, jmod.size(), jmod.entries());
+        }
+
+        Map<String, String> origins =
+                classPathElements.isEmpty() ? Collections.<String, String>emptyMap() : findOrigins(classPathElements);
+        for (String element : classPathElements) {
+            report.classPath.put(element, new Totals());
+        }
+
+        for (JModFile.Entry entry : report.entries) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+            report.total.add(entry);
+            Totals section = report.sections.get(entry.getSection());
+            if (section == null) {
+                section = new Totals();
+                report.sections.put(entry.getSection(), section);
+            }
+            section.add(entry);
+
+            if (CLASSES.equals(entry.getSection()) && !classPathElements.isEmpty()) {
+                String origin = origins.get(entry.getPath());
+                if (origin == null) {
+                    origin = UNKNOWN_ORIGIN;
+                }
+                Totals totals = report.classPath.get(origin);
+                if (totals == null) {
+                    totals = new Totals();
+                    report.classPath.put(origin, totals);
+                }
+                totals.add(entry);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Map each path of a class path element to the first element containing it, which is the one
+     * <code>jmod</code> takes the content from.
+     */
+    private static Map<String, String> findOrigins(List<String> classPathElements) throws IOException {
+        Map<String, String> origins = new HashMap<>();
+        for (String element : classPathElements) {
+            File file = new File(element);
+            if (file.isDirectory()) {
+                addDirectory(origins, element, file, "");
+            } else if (file.isFile()) {
+                try (ZipFile zip = new ZipFile(file)) {
+                    Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+                    while (zipEntries.hasMoreElements()) {
+                        ZipEntry zipEntry = zipEntries.nextElement();
+                        if (!zipEntry.isDirectory() && !origins.containsKey(zipEntry.getName())) {
+                            origins.put(zipEntry.getName(), element);
+                        }
+                    }
+                }
+            }
+        }
+        return origins;
+    }
+
+    private static void addDirectory(Map<String, String> origins, String element, File directory, String prefix) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String path = prefix + file.getName();
+            if (file.isDirectory()) {
+                addDirectory(origins, element, file, path + "/");
+            } else if (!origins.containsKey(path)) {
+                origins.put(path, element);
+            }
+        }
+    }
+
+    /**
+     * Write the report as JSON.
+     *
+     * @param reportFile the file to write
+     * @param topEntries the number of largest entries to include
+     * @throws IOException in case of a failure writing the file
+     */
+    void write(File reportFile, int topEntries) throws IOException {
+        try (JsonWriter json = JsonWriter.create(reportFile)) {
+            json.beginObject();
+            json.property("jmod", jmodFile.getAbsolutePath());
+            json.property("fileSize", fileSize);
+            writeTotals(json, total);
+
+            json.name("sections").beginArray();
+            for (Map.Entry<String, Totals> section : sections.entrySet()) {
+                json.beginObject().property("name", section.getKey());
+                writeTotals(json, section.getValue());
+                json.endObject();
+            }
+            json.endArray();
+
+            json.name("largestEntries").beginArray();
+            for (JModFile.Entry entry : getLargestEntries(topEntries)) {
+                json.beginObject()
+                        .property("name", entry.getName())
+                        .property("size", entry.getSize())
+                        .property("compressedSize", entry.getCompressedSize())
+                        .property("ratio", ratio(entry.getCompressedSize(), entry.getSize()))
+                        .endObject();
+            }
+            json.endArray();
+
+            json.name("classPath").beginArray();
+            for (Map.Entry<String, Totals> element : classPath.entrySet()) {
+                json.beginObject().property("element", element.getKey());
+                writeTotals(json, element.getValue());
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    /**
+     * Log a short summary: one line per non empty section.
+     */
+    void log(Log log) {
+        log.info("Size of " + jmodFile.getName() + ": " + fileSize + " bytes, " + total.entries + " entries, "
+                + total.size + " bytes uncompressed");
+        for (Map.Entry<String, Totals> section : sections.entrySet()) {
+            Totals totals = section.getValue();
+            if (totals.entries > 0) {
+                log.info(String.format(
+                        "  %-8s %6d entries %12d bytes %12d compressed (%.0f%%)",
+                        section.getKey(),
+                        totals.entries,
+                        totals.size,
+                        totals.compressedSize,
+                        ratio(totals.compressedSize, totals.size) * 100));
+            }
+        }
+    }
+
+    Map<String, Totals> getSections() {
+        return sections;
+    }
+
+    Totals getTotal() {
+        return total;
+    }
+
+    long getFileSize() {
+        return fileSize;
+    }
+
+    List<JModFile.Entry> getLargestEntries(int count) {
+        List<JModFile.Entry> files = new ArrayList<>(entries.size());
+        for (JModFile.Entry entry : entries) {
+            if (!entry.isDirectory()) {
+                files.add(entry);
+            }
+        }
+        Collections.sort(files, new Comparator<JModFile.Entry>() {
+            @Override
+            public int compare(JModFile.Entry o1, JModFile.Entry o2) {
+                int result = Long.compare(o2.getCompressedSize(), o1.getCompressedSize());
+                return result != 0 ? result : o1.getName().compareTo(o2.getName());
+            }
+        });
+        return files.subList(0, Math.min(Math.max(count, 0), files.size()));
+    }
+
+    private static void writeTotals(JsonWriter json, Totals totals) throws IOException {
+        json.property("entries", totals.entries)
+                .property("size", totals.size)
+                .property("compressedSize", totals.compressedSize)
+                .property("ratio", ratio(totals.compressedSize, totals.size));
+    }
+
+    private static double ratio(long compressed, long size) {
+        return size == 0 ? 1.0 : Math.round(compressed * 10000.0 / size) / 10000.0;
+    }
+
+    /**
+     * Number of entries and their uncompressed and compressed sizes.
+     */
+    static final class Totals {
+        private long entries;
+
+        private long size;
+
+        private long compressedSize;
+
+        private void add(JModFile.Entry entry) {
+            entries++;
+            size += entry.getSize();
+            compressedSize += entry.getCompressedSize();
+        }
+
+        long getEntries() {
+            return entries;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getCompressedSize() {
+            return compressedSize;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.RecordComponentVisitor;
+
+/**
+ * Stages the elements of the class path of the <code>jmod</code> tool without the debug attributes of their class
+ * files, like <code>jlink --strip-debug</code> does for an image. A directory is mirrored file by file: class files are
+ * rewritten, other files are linked, and a staged file is kept as long as it has the modification time of its source,
+ * so a repeated build only rewrites the changed classes. A jar file is extracted into a directory, unless it has not
+ * changed since the last extraction.
+ */
+final class JModStripDebug {
+
+    static final String LINE_NUMBER_TABLE = "LineNumberTable";
+
+    static final String LOCAL_VARIABLE_TABLE = "LocalVariableTable";
+
+    static final String SOURCE_FILE = "SourceFile";
+
+    /**
+     * The attributes which can be removed, by default all of them.
+     */
+    static final List<String> ATTRIBUTES =
+            Collections.unmodifiableList(Arrays.asList(LINE_NUMBER_TABLE, LOCAL_VARIABLE_TABLE, SOURCE_FILE));
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean lineNumbers;
+
+    private final boolean localVariables;
+
+    private final boolean sourceFile;
+
+    private int classes;
+
+    private int rewritten;
+
+    private long originalBytes;
+
+    private long strippedBytes;
+
+    /**
+     * @param attributes the attributes to remove, see {@link #ATTRIBUTES}
+     * @throws IllegalArgumentException in case of an unknown attribute
+     */
+    JModStripDebug(Collection<String> attributes) {
+        for (String attribute : attributes) {
+            if (!ATTRIBUTES.contains(attribute)) {
+                throw new IllegalArgumentException("The debug attribute " + attribute
+                        + " can not be stripped, valid values are " + String.join(", ", ATTRIBUTES) + ".");
+            }
+        }
+        this.lineNumbers = attributes.contains(LINE_NUMBER_TABLE);
+        this.localVariables = attributes.contains(LOCAL_VARIABLE_TABLE);
+        this.sourceFile = attributes.contains(SOURCE_FILE);
+    }
+
+    /**
+     * @return the number of staged class files
+     */
+    int getClasses() {
+        return classes;
+    }
+
+    /**
+     * @return the number of class files which have been rewritten, the others have been staged by an earlier build
+     */
+    int getRewritten() {
+        return rewritten;
+    }
+
+    /**
+     * @return the size of the staged class files with their debug attributes
+     */
+    long getOriginalBytes() {
+        return originalBytes;
+    }
+
+    /**
+     * @return the size of the staged class files without their debug attributes
+     */
+    long getStrippedBytes() {
+        return strippedBytes;
+    }
+
+    /**
+     * Stage the class path. Elements which have been staged before and are no longer on the class path are removed
+     * from the staging directory.
+     *
+     * @param elements the directories and jar files of the class path
+     * @param stagingDirectory the directory the elements are staged in
+     * @return the staged elements in the order of the class path, each mapped to the element it has been staged from;
+     *         elements which do not exist are left out
+     * @throws IOException in case an element can not be read or contains an invalid class file
+     */
+    Map<String, String> stage(List<String> elements, File stagingDirectory) throws IOException {
+        Map<String, String> staged = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < elements.size(); i++) {
+            File element = new File(elements.get(i));
+            File target = new File(stagingDirectory, i + "-" + element.getName());
+            if (element.isDirectory()) {
+                stageDirectory(element, target);
+            } else if (element.isFile()) {
+                stageJar(element, target);
+            } else {
+                continue;
+            }
+            names.add(target.getName());
+            staged.put(target.getPath(), elements.get(i));
+        }
+        File[] children = stagingDirectory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (!names.contains(child.getName())) {
+                    delete(child);
+                }
+            }
+        }
+        return staged;
+    }
+
+    private void stageDirectory(File source, File target) throws IOException {
+        if (!target.isDirectory()) {
+            delete(target);
+            Files.createDirectories(target.toPath());
+        }
+        Set<String> names = new HashSet<>();
+        File[] files = source.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                File staged = new File(target, file.getName());
+                names.add(file.getName());
+                if (file.isDirectory()) {
+                    stageDirectory(file, staged);
+                } else if (file.getName().endsWith(CLASS_SUFFIX)) {
+                    stageClass(file, staged);
+                } else if (!staged.isFile()
+                        || staged.lastModified() != file.lastModified()
+                        || staged.length() != file.length()) {
+                    link(file, staged);
+                }
+            }
+        }
+        File[] stagedFiles = target.listFiles();
+        if (stagedFiles != null) {
+            for (File staged : stagedFiles) {
+                if (!names.contains(staged.getName())) {
+                    delete(staged);
+                }
+            }
+        }
+    }
+
+    private void stageClass(File source, File target) throws IOException {
+        classes++;
+        originalBytes += source.length();
+        if (target.isFile() && target.lastModified() == source.lastModified()) {
+            strippedBytes += target.length();
+            return;
+        }
+        byte[] content = strip(Files.readAllBytes(source.toPath()), source.getPath());
+        delete(target);
+        Files.write(target.toPath(), content);
+        if (!target.setLastModified(source.lastModified())) {
+            throw new IOException("Unable to set the modification time of " + target);
+        }
+        rewritten++;
+        strippedBytes += content.length;
+    }
+
+    /**
+     * Extract a jar file into a directory which gets the modification time of the jar file.
+     */
+    private void stageJar(File jar, File target) throws IOException {
+        try (ZipFile zip = new ZipFile(jar)) {
+            if (target.isDirectory() && target.lastModified() == jar.lastModified()) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().endsWith(CLASS_SUFFIX)) {
+                        classes++;
+                        originalBytes += entry.getSize();
+                        strippedBytes += new File(target, entry.getName()).length();
+                    }
+                }
+                return;
+            }
+            delete(target);
+            Files.createDirectories(target.toPath());
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory()
+                        || name.startsWith("/")
+                        || Arrays.asList(name.split("/")).contains("..")) {
+                    continue;
+                }
+                File file = new File(target, name);
+                Files.createDirectories(file.getParentFile().toPath());
+                try (InputStream in = zip.getInputStream(entry)) {
+                    if (name.endsWith(CLASS_SUFFIX)) {
+                        byte[] content = readAll(in);
+                        byte[] stripped = strip(content, jar.getName() + '!' + name);
+                        Files.write(file.toPath(), stripped);
+                        classes++;
+                        rewritten++;
+                        originalBytes += content.length;
+                        strippedBytes += stripped.length;
+                    } else {
+                        Files.copy(in, file.toPath());
+                    }
+                }
+            }
+        }
+        if (!target.setLastModified(jar.lastModified())) {
+            throw new IOException("Unable to set the modification time of " + target);
+        }
+    }
+
+    /**
+     * Remove the debug attributes of a class file. The constant pool is written anew, so the constants which are only
+     * used by the removed attributes, like the names of the local variables, are removed as well. Attributes which ASM
+     * does not know refer to the constant pool of the reader, so a class with such an attribute keeps its constant
+     * pool.
+     *
+     * @param classFile the content of the class file
+     * @param location the location of the class file for the error message
+     * @return the content without the debug attributes
+     * @throws IOException in case of an invalid class file
+     */
+    byte[] strip(byte[] classFile, String location) throws IOException {
+        try {
+            ClassReader reader = new ClassReader(classFile);
+            boolean[] unknownAttribute = new boolean[1];
+            ClassWriter writer = new ClassWriter(0);
+            reader.accept(new StripVisitor(writer, unknownAttribute), 0);
+            if (unknownAttribute[0]) {
+                writer = new ClassWriter(reader, 0);
+                reader.accept(new StripVisitor(writer, unknownAttribute), 0);
+            }
+            return writer.toByteArray();
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid class file " + location + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Link a file into the staging directory, or copy it if the file system does not support links.
+     */
+    private static void link(File source, File target) throws IOException {
+        delete(target);
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    private static void delete(File file) throws IOException {
+        if (file.isDirectory()) {
+            Directories.delete(file);
+        } else {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Drops the debug attributes and records whether the class has an attribute which ASM does not know.
+     */
+    private final class StripVisitor extends ClassVisitor {
+        private final boolean[] unknownAttribute;
+
+        StripVisitor(ClassVisitor classVisitor, boolean[] unknownAttribute) {
+            super(Opcodes.ASM9, classVisitor);
+            this.unknownAttribute = unknownAttribute;
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            if (!sourceFile) {
+                super.visitSource(source, debug);
+            }
+        }
+
+        @Override
+        public void visitAttribute(Attribute attribute) {
+            unknownAttribute[0] = true;
+            super.visitAttribute(attribute);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            return new FieldVisitor(Opcodes.ASM9, super.visitField(access, name, descriptor, signature, value)) {
+                @Override
+                public void visitAttribute(Attribute attribute) {
+                    unknownAttribute[0] = true;
+                    super.visitAttribute(attribute);
+                }
+            };
+        }
+
+        @Override
+        public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+            return new RecordComponentVisitor(Opcodes.ASM9, super.visitRecordComponent(name, descriptor, signature)) {
+                @Override
+                public void visitAttribute(Attribute attribute) {
+                    unknownAttribute[0] = true;
+                    super.visitAttribute(attribute);
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(
+                int access, String name, String descriptor, String signature, String[] exceptions) {
+            return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                @Override
+                public void visitAttribute(Attribute attribute) {
+                    unknownAttribute[0] = true;
+                    super.visitAttribute(attribute);
+                }
+
+                @Override
+                public void visitLineNumber(int line, Label start) {
+                    if (!lineNumbers) {
+                        super.visitLineNumber(line, start);
+                    }
+                }
+
+                @Override
+                public void visitLocalVariable(
+                        String name, String descriptor, String signature, Label start, Label end, int index) {
+                    if (!localVariables) {
+                        super.visitLocalVariable(name, descriptor, signature, start, end, index);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Updates a <code>jmod</code> file in place of the <code>jmod</code> tool. The inputs are compared with the central
+ * directory of the previous file by name, size and CRC: the compressed data of unchanged entries is copied byte by
+ * byte, only added and changed entries are compressed. The cost of an update therefore depends on the size of the
+ * change rather than on the size of the module.
+ * <p>
+ * The <code>jmod</code> tool extends the <code>module-info.class</code> by attributes like the packages of the module,
+ * so the descriptor of the previous file is the base of the update. The packages are derived from the names of the
+ * inputs, and if they, the main class or the target platform differ from the ones of the previous descriptor, its
+ * <code>ModulePackages</code>, <code>ModuleMainClass</code> and <code>ModuleTarget</code> attributes are rewritten in
+ * the same pass; otherwise its compressed data is copied. The caller has to make sure that neither the compiled
+ * descriptor nor the other options of the tool have changed. The update is written to a temporary file which replaces
+ * the previous one, so readers never see a partial file.
+ * </p>
+ */
+final class JModUpdate {
+
+    static final String MODULE_INFO = "classes/module-info.class";
+
+    private static final String CLASSES = "classes/";
+
+    private int copied;
+
+    private int compressed;
+
+    private int removed;
+
+    private long copiedBytes;
+
+    private long compressedBytes;
+
+    private JModUpdate() {}
+
+    /**
+     * @return the number of entries whose compressed data has been copied from the previous file
+     */
+    int getCopied() {
+        return copied;
+    }
+
+    /**
+     * @return the number of added and changed entries
+     */
+    int getCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return the number of entries of the previous file which have no input anymore
+     */
+    int getRemoved() {
+        return removed;
+    }
+
+    long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * @return the uncompressed size of the added and changed entries
+     */
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Update the <code>jmod</code> file to the given inputs.
+     *
+     * @param jmodFile the previous <code>jmod</code> file, which is replaced
+     * @param inputs the entry names, for example <code>classes/myproject/HelloWorld.class</code>, and the files of
+     *            their content in the order they are written, without the <code>module-info.class</code>
+     * @param mainClass the main class of the module, <code>null</code> keeps the one of the previous descriptor
+     * @param targetPlatform the target platform, <code>null</code> keeps the one of the previous descriptor
+     * @param checksums the digests which are updated with the content of the updated file, or <code>null</code>
+     * @param entryDigests the map the SHA-256 of the content of every entry is put into by name, or <code>null</code>
+     * @return the summary of the update
+     * @throws IOException in case the file can not be updated, it is left untouched then
+     */
+    static JModUpdate update(
+            File jmodFile,
+            Map<String, File> inputs,
+            String mainClass,
+            String targetPlatform,
+            JModChecksums checksums,
+            Map<String, String> entryDigests)
+            throws IOException {
+        JModUpdate update = new JModUpdate();
+        File tmp = new File(jmodFile.getParentFile(), jmodFile.getName() + ".tmp");
+        try (JModFile previous = JModFile.open(jmodFile)) {
+            JModFile.Entry moduleInfo = previous.getEntry(MODULE_INFO);
+            if (moduleInfo == null) {
+                throw new IOException("the previous file contains no " + MODULE_INFO);
+            }
+            byte[] descriptor = previous.readAllBytes(moduleInfo);
+            ModuleInfo info = ModuleInfo.read(new ByteArrayInputStream(descriptor));
+            Set<String> packages = packages(inputs.keySet());
+
+            try (JModWriter writer = new JModWriter(tmp, checksums, entryDigests)) {
+                if (packages.equals(info.getPackages())
+                        && (mainClass == null || mainClass.equals(info.getMainClass()))
+                        && (targetPlatform == null || targetPlatform.equals(info.getTargetPlatform()))) {
+                    writer.copy(previous, moduleInfo);
+                } else {
+                    writer.compress(
+                            MODULE_INFO,
+                            jmodFile.lastModified(),
+                            ModuleInfo.withAttributes(descriptor, packages, mainClass, targetPlatform));
+                }
+                for (Map.Entry<String, File> input : inputs.entrySet()) {
+                    JModFile.Entry entry = previous.getEntry(input.getKey());
+                    File file = input.getValue();
+                    if (entry != null
+                            && entry.getSize() == file.length()
+                            && (entry.getMethod() == JModFile.STORED || entry.getMethod() == JModFile.DEFLATED)
+                            && entry.getCrc() == writer.crc(file)) {
+                        writer.copy(previous, entry);
+                    } else {
+                        writer.compress(input.getKey(), file);
+                    }
+                }
+                writer.finish();
+                update.copied = writer.getCopied();
+                update.compressed = writer.getCompressed();
+                update.copiedBytes = writer.getCopiedBytes();
+                update.compressedBytes = writer.getCompressedBytes();
+            }
+            for (JModFile.Entry entry : previous.entries()) {
+                if (!entry.getName().equals(MODULE_INFO) && !inputs.containsKey(entry.getName())) {
+                    update.removed++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        }
+        Files.move(tmp.toPath(), jmodFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return update;
+    }
+
+    /**
+     * The packages of the module as the <code>jmod</code> tool records them: the directories of the
+     * <code>classes</code> section which contain a class, or a resource if the directory is a valid package name, so
+     * for example <code>META-INF</code> is no package.
+     */
+    private static Set<String> packages(Iterable<String> names) {
+        Set<String> packages = new TreeSet<>();
+        for (String name : names) {
+            int index = name.lastIndexOf('/');
+            if (!name.startsWith(CLASSES) || index < CLASSES.length()) {
+                continue;
+            }
+            String packaze = name.substring(CLASSES.length(), index).replace('/', '.');
+            if (name.endsWith(".class") || isPackageName(packaze)) {
+                packages.add(packaze);
+            }
+        }
+        return packages;
+    }
+
+    private static boolean isPackageName(String name) {
+        for (String identifier : name.split("\\.", -1)) {
+            if (identifier.isEmpty() || !Character.isJavaIdentifierStart(identifier.charAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < identifier.length(); i++) {
+                if (!Character.isJavaIdentifierPart(identifier.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
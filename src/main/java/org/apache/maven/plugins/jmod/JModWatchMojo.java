@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.plexus.languages.java.jpms.LocationManager;
+
+/**
+ * The <code>watch</code> goal creates the <code>jmod</code> file like the <code>create</code> goal and then watches
+ * the classes directory and the directories of the other sections (<code>src/main/cmds</code>,
+ * <code>src/main/configs</code>, <code>src/main/libs</code>, <code>src/main/headerfiles</code>,
+ * <code>src/main/legalnotices</code> and <code>src/main/manpages</code> or the configured ones). Whenever files
+ * change the <code>jmod</code> file is created again, until the build is stopped, for example with Ctrl+C. A classes
+ * directory which does not exist yet, or a watched directory which is deleted, is watched again once it is created.
+ * <p>
+ * The changes are collected until no further change arrives within {@link #watchDebounce}, so a compilation or a
+ * copied directory leads to a single rebuild. The class and module path are only resolved again if the
+ * <code>module-info.class</code> changes or if the file system has lost events. The <code>jmod</code> file is updated
+ * incrementally where possible, see the <code>incremental</code> parameter of the <code>create</code> goal. The
+ * dependencies are resolved once, when the goal starts. The created file is not attached to the project, the jmod
+ * files of the <code>platforms</code> and <code>jdkToolchains</code> are not created and the budgets are not checked;
+ * a warning names these parameters if they are configured. The timings and trace spans cover the last rebuild.
+ * </p>
+ */
+@Mojo(name = "watch", requiresDependencyResolution = ResolutionScope.RUNTIME, requiresProject = true, threadSafe = true)
+public class JModWatchMojo extends JModCreateMojo {
+
+    private static final String MODULE_INFO = "module-info.class";
+
+    /**
+     * The time in milliseconds without further changes after which the <code>jmod</code> file is created again.
+     */
+    @Parameter(defaultValue = "200", property = "jmod.watch.debounce")
+    private long watchDebounce;
+
+    /**
+     * Stop watching after this number of rebuilds, <code>0</code> watches until the build is stopped.
+     */
+    @Parameter(defaultValue = "0", property = "jmod.watch.maxRebuilds")
+    private int watchMaxRebuilds;
+
+    /**
+     * Whether the class and module path have to be resolved again: the watch service has lost events, so it is unknown
+     * what has changed, or the last resolution has failed.
+     */
+    private boolean pathsOutdated;
+
+    @Inject
+    public JModWatchMojo(
+            ToolchainManager toolchainManager, LocationManager locationManager, MavenProjectHelper projectHelper) {
+        super(toolchainManager, locationManager, projectHelper);
+    }
+
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        File jmodFile = getResultingJModFile();
+        List<String> ignored = getAttachingParameters();
+        if (!ignored.isEmpty()) {
+            getLog().warn("The watch goal only creates " + jmodFile.getName() + ", the parameters "
+                    + String.join(", ", ignored) + " are ignored.");
+        }
+        try {
+            prepare();
+            createLockedJModFile();
+            getLog().info("Created " + jmodFile.getAbsolutePath());
+
+            try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+                Map<WatchKey, Path> directories = new HashMap<>();
+                List<Path> roots = new ArrayList<>();
+                roots.add(getTargetClassesDirectory().toPath());
+                for (File directory : getSectionDirectories()) {
+                    roots.add(directory.toPath());
+                }
+                int watched = watchRoots(watchService, roots, directories).size();
+                getLog().info("Watching " + watched + " directories for changes, stop with Ctrl+C.");
+
+                for (int rebuilds = 0; watchMaxRebuilds <= 0 || rebuilds < watchMaxRebuilds; rebuilds++) {
+                    Set<Path> changes = awaitChanges(watchService, roots, directories);
+                    rebuild(jmodFile, changes);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to watch the inputs of " + jmodFile.getName() + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            getLog().info("Stopped watching the inputs of " + jmodFile.getName());
+        }
+    }
+
+    /**
+     * Register a directory and its sub directories, the service only reports changes of the direct children.
+     */
+    private static void register(final WatchService watchService, Path root, final Map<WatchKey, Path> directories)
+            throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(
+                        watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Register the roots which exist and are not watched yet. A missing root is awaited by watching its nearest
+     * existing parent directory, the watches of parents which are no longer needed are cancelled.
+     *
+     * @return the roots which have been registered
+     */
+    private static List<Path> watchRoots(WatchService watchService, List<Path> roots, Map<WatchKey, Path> directories)
+            throws IOException {
+        Set<Path> watched = new HashSet<>(directories.values());
+        Set<Path> parents = new HashSet<>();
+        List<Path> registered = new ArrayList<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                if (!watched.contains(root)) {
+                    register(watchService, root, directories);
+                    registered.add(root);
+                }
+                continue;
+            }
+            Path parent = root.getParent();
+            while (parent != null && !Files.isDirectory(parent)) {
+                parent = parent.getParent();
+            }
+            if (parent != null) {
+                parents.add(parent);
+                if (!watched.contains(parent)) {
+                    directories.put(
+                            parent.register(
+                                    watchService,
+                                    StandardWatchEventKinds.ENTRY_CREATE,
+                                    StandardWatchEventKinds.ENTRY_DELETE,
+                                    StandardWatchEventKinds.ENTRY_MODIFY),
+                            parent);
+                }
+            }
+        }
+        for (Iterator<Map.Entry<WatchKey, Path>> it = directories.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<WatchKey, Path> entry = it.next();
+            if (!isWithinRoots(entry.getValue(), roots) && !parents.contains(entry.getValue())) {
+                entry.getKey().cancel();
+                it.remove();
+            }
+        }
+        return registered;
+    }
+
+    private static boolean isWithinRoots(Path path, List<Path> roots) {
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wait for the next change and collect the following ones until the inputs are quiet for
+     * {@link #watchDebounce} milliseconds. Changes next to a missing root, in one of its parent directories, are
+     * ignored.
+     *
+     * @return the changed files and directories
+     */
+    private Set<Path> awaitChanges(WatchService watchService, List<Path> roots, Map<WatchKey, Path> directories)
+            throws IOException, InterruptedException {
+        Set<Path> changes = new LinkedHashSet<>();
+        WatchKey key = watchService.take();
+        while (key != null) {
+            Path directory = directories.get(key);
+            boolean rootsChanged = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (directory == null) {
+                    continue;
+                }
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    pathsOutdated = true;
+                    changes.add(directory);
+                    rootsChanged = true;
+                    continue;
+                }
+                Path child = directory.resolve((Path) event.context());
+                if (!isWithinRoots(child, roots)) {
+                    // a parent directory of a missing root may have been created
+                    rootsChanged |= event.kind() == StandardWatchEventKinds.ENTRY_CREATE;
+                    continue;
+                }
+                changes.add(child);
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                    register(watchService, child, directories);
+                    rootsChanged |= roots.contains(child);
+                }
+            }
+            if (!key.reset()) {
+                // the directory has been deleted
+                directories.remove(key);
+                rootsChanged = true;
+            }
+            if (rootsChanged) {
+                changes.addAll(watchRoots(watchService, roots, directories));
+            }
+            key = changes.isEmpty() ? watchService.take() : watchService.poll(watchDebounce, TimeUnit.MILLISECONDS);
+        }
+        return changes;
+    }
+
+    private void rebuild(File jmodFile, Set<Path> changes) {
+        // the phases of the rebuilds would pile up until the goal is stopped
+        restartTimings();
+        long start = System.nanoTime();
+        try {
+            if (pathsOutdated || isModuleDescriptorChanged(changes)) {
+                getLog().info("The module descriptor may have changed, resolving the module path again.");
+                pathsOutdated = true;
+                prepare();
+                pathsOutdated = false;
+            }
+            createLockedJModFile();
+            getLog().info("Rebuilt " + jmodFile.getName() + " in " + (System.nanoTime() - start) / 1_000_000L
+                    + " ms after " + changes.size() + " changes.");
+        } catch (MojoExecutionException | MojoFailureException e) {
+            // for example a compilation which is still running, the next change triggers a rebuild
+            getLog().error("Unable to rebuild " + jmodFile.getName() + ": " + e.getMessage());
+            getLog().info("Waiting for further changes.");
+        }
+    }
+
+    /**
+     * Create the jmod file while holding the lock of its directory, like the <code>create</code> goal.
+     */
+    private void createLockedJModFile() throws MojoExecutionException, MojoFailureException {
+        File modsFolder = getResultingJModFile().getParentFile();
+        try (JModOutputLock lock = JModOutputLock.lock(modsFolder, getLog())) {
+            createJModFile();
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to lock the output directory " + modsFolder.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    boolean isAttaching() {
+        return false;
+    }
+
+    private boolean isModuleDescriptorChanged(Set<Path> changes) {
+        for (Path change : changes) {
+            if (MODULE_INFO.equals(change.getFileName().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,547 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Writes a <code>jmod</code> file entry by entry: the compressed data of entries of another <code>jmod</code> file is
+ * copied byte by byte, new entries are compressed like the <code>jmod</code> tool does, with the sizes in a data
+ * descriptor behind the data. The zip64 extensions are written where the sizes, the offsets or the number of entries
+ * need them, like <code>java.util.zip.ZipOutputStream</code> does. The content is streamed through the fixed-size
+ * buffers of the writer, so the memory does not depend on the size of the entries.
+ * <p>
+ * If requested, the SHA-256 of the content of every entry is computed on the way: from the data which is compressed,
+ * and for a copied entry from its data which is inflated while it is copied.
+ * </p>
+ */
+final class JModWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_HEADER_SIGNATURE = 0x06054b50;
+
+    private static final int ZIP64_END_HEADER_SIGNATURE = 0x06064b50;
+
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int VERSION = 20;
+
+    private static final int ZIP64_VERSION = 45;
+
+    private static final long ZIP64_MAGIC = JModFile.ZIP64_MAGIC;
+
+    /**
+     * The number of entries beyond which the end header refers to the zip64 end header.
+     */
+    private static final int ZIP64_MAGIC_COUNT = 0xffff;
+
+    /**
+     * General purpose flags: the sizes follow the data in a data descriptor.
+     */
+    private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+
+    /**
+     * General purpose flags: the name is encoded in UTF-8.
+     */
+    private static final int FLAG_UTF8 = 0x800;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CountingOutputStream out;
+
+    private final List<CentralHeader> headers = new ArrayList<>();
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final Map<String, String> entryDigests;
+
+    private final MessageDigest sha256;
+
+    private byte[] inflated;
+
+    private int copied;
+
+    private int compressed;
+
+    private long copiedBytes;
+
+    private long compressedBytes;
+
+    /**
+     * @param file the file to write, which is replaced
+     * @param checksums the digests which are updated with every written byte, or <code>null</code>
+     * @param entryDigests the map the SHA-256 of the content of every entry is put into by name, or <code>null</code>
+     */
+    JModWriter(File file, JModChecksums checksums, Map<String, String> entryDigests) throws IOException {
+        this.entryDigests = entryDigests;
+        try {
+            this.sha256 = entryDigests != null ? MessageDigest.getInstance("SHA-256") : null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE), checksums);
+        try {
+            out.write(JModFile.MAGIC);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of entries whose compressed data has been copied
+     */
+    int getCopied() {
+        return copied;
+    }
+
+    /**
+     * @return the number of entries which have been compressed
+     */
+    int getCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return the compressed size of the copied entries
+     */
+    long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * @return the uncompressed size of the compressed entries
+     */
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Copy the compressed data of an entry.
+     *
+     * @param source the <code>jmod</code> file of the entry
+     * @param entry the entry
+     */
+    void copy(JModFile source, JModFile.Entry entry) throws IOException {
+        CentralHeader header = newHeader(
+                entry.getName(),
+                entry.getMethod(),
+                entry.getDosTime(),
+                entry.getCrc(),
+                entry.getCompressedSize(),
+                entry.getSize());
+        writeLocalHeader(header, 0);
+        // the content of an entry with another compression method is unknown, it gets no digest
+        boolean stored = sha256 != null && entry.getMethod() == JModFile.STORED;
+        Inflater inflater = sha256 != null && entry.getMethod() == JModFile.DEFLATED ? new Inflater(true) : null;
+        try (InputStream in = source.getRawInputStream(entry)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+                if (inflater != null) {
+                    inflate(inflater, n);
+                } else if (stored) {
+                    sha256.update(buffer, 0, n);
+                }
+            }
+            if (inflater != null && !inflater.finished()) {
+                throw new IOException(
+                        "The data of entry " + entry.getName() + " of " + source.getFile() + " is incomplete.");
+            }
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+        if (stored || inflater != null) {
+            putEntryDigest(header.name);
+        }
+        copied++;
+        copiedBytes += entry.getCompressedSize();
+    }
+
+    /**
+     * Compress a file into a new entry.
+     *
+     * @param name the name of the entry, for example <code>lib/libnative.so</code>
+     * @param file the content
+     */
+    void compress(String name, File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            compress(name, file.lastModified(), in);
+        }
+    }
+
+    /**
+     * Compress content into a new entry.
+     *
+     * @param name the name of the entry
+     * @param time the modification time in milliseconds since the epoch
+     * @param content the content
+     */
+    void compress(String name, long time, byte[] content) throws IOException {
+        compress(name, time, new ByteArrayInputStream(content));
+    }
+
+    private void compress(String name, long time, InputStream in) throws IOException {
+        CentralHeader header = newHeader(name, JModFile.DEFLATED, dosTime(time), 0, 0, 0);
+        writeLocalHeader(header, FLAG_DATA_DESCRIPTOR);
+
+        long start = out.getCount();
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            // only finished, closing it would close the jmod file
+            DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+            long size = 0;
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+                if (sha256 != null) {
+                    sha256.update(buffer, 0, n);
+                }
+                deflated.write(buffer, 0, n);
+                size += n;
+            }
+            deflated.finish();
+            putEntryDigest(name);
+            header.crc = crc.getValue();
+            header.size = size;
+        } finally {
+            deflater.end();
+        }
+        header.compressedSize = out.getCount() - start;
+
+        boolean zip64 = header.size >= ZIP64_MAGIC || header.compressedSize >= ZIP64_MAGIC;
+        ByteBuffer descriptor = newBuffer(zip64 ? 24 : 16);
+        descriptor.putInt(DATA_DESCRIPTOR_SIGNATURE);
+        descriptor.putInt((int) header.crc);
+        if (zip64) {
+            descriptor.putLong(header.compressedSize);
+            descriptor.putLong(header.size);
+        } else {
+            descriptor.putInt((int) header.compressedSize);
+            descriptor.putInt((int) header.size);
+        }
+        out.write(descriptor.array());
+
+        header.flags = FLAG_DATA_DESCRIPTOR;
+        compressed++;
+        compressedBytes += header.size;
+    }
+
+    /**
+     * Inflate the compressed data in the buffer into the digest of the entry.
+     */
+    private void inflate(Inflater inflater, int length) throws IOException {
+        if (inflated == null) {
+            inflated = new byte[BUFFER_SIZE];
+        }
+        inflater.setInput(buffer, 0, length);
+        try {
+            int n;
+            while ((n = inflater.inflate(inflated)) > 0) {
+                sha256.update(inflated, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed data: " + e.getMessage(), e);
+        }
+    }
+
+    private void putEntryDigest(String name) {
+        if (sha256 == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : sha256.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        entryDigests.put(name, sb.toString());
+    }
+
+    /**
+     * @return the CRC-32 of the content of a file, computed with the buffer of this writer
+     */
+    long crc(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private CentralHeader newHeader(String name, int method, long dosTime, long crc, long compressedSize, long size) {
+        CentralHeader header = new CentralHeader(
+                name, method, dosTime, crc, compressedSize, size, out.getCount() - JModFile.MAGIC.length);
+        headers.add(header);
+        return header;
+    }
+
+    private void writeLocalHeader(CentralHeader header, int flags) throws IOException {
+        byte[] name = header.name.getBytes(StandardCharsets.UTF_8);
+        boolean descriptor = (flags & FLAG_DATA_DESCRIPTOR) != 0;
+        // the sizes of an entry with a data descriptor are unknown here, the descriptor has the zip64 sizes then
+        boolean zip64 = !descriptor && (header.size >= ZIP64_MAGIC || header.compressedSize >= ZIP64_MAGIC);
+        ByteBuffer buffer = newBuffer(30 + name.length + (zip64 ? 20 : 0));
+        buffer.putInt(LOCAL_HEADER_SIGNATURE);
+        buffer.putShort((short) (zip64 ? ZIP64_VERSION : VERSION));
+        buffer.putShort((short) (flags | FLAG_UTF8));
+        buffer.putShort((short) header.method);
+        buffer.putInt((int) header.dosTime);
+        buffer.putInt(descriptor ? 0 : (int) header.crc);
+        buffer.putInt(descriptor ? 0 : (int) (zip64 ? ZIP64_MAGIC : header.compressedSize));
+        buffer.putInt(descriptor ? 0 : (int) (zip64 ? ZIP64_MAGIC : header.size));
+        buffer.putShort((short) name.length);
+        buffer.putShort((short) (zip64 ? 20 : 0));
+        buffer.put(name);
+        if (zip64) {
+            // the local header has both sizes
+            buffer.putShort((short) JModFile.ZIP64_EXTRA_ID);
+            buffer.putShort((short) 16);
+            buffer.putLong(header.size);
+            buffer.putLong(header.compressedSize);
+        }
+        out.write(buffer.array());
+    }
+
+    /**
+     * Write the central directory, which completes the file.
+     */
+    void finish() throws IOException {
+        long start = out.getCount();
+        for (CentralHeader header : headers) {
+            byte[] name = header.name.getBytes(StandardCharsets.UTF_8);
+            // the zip64 extra field has the values which do not fit, in this order
+            boolean zip64Size = header.size >= ZIP64_MAGIC;
+            boolean zip64CompressedSize = header.compressedSize >= ZIP64_MAGIC;
+            boolean zip64Offset = header.localHeaderOffset >= ZIP64_MAGIC;
+            int zip64Length = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+            int extraLength = zip64Length > 0 ? 4 + zip64Length : 0;
+            int version = zip64Length > 0 ? ZIP64_VERSION : VERSION;
+
+            ByteBuffer buffer = newBuffer(46 + name.length + extraLength);
+            buffer.putInt(CENTRAL_HEADER_SIGNATURE);
+            buffer.putShort((short) version);
+            buffer.putShort((short) version);
+            buffer.putShort((short) (header.flags | FLAG_UTF8));
+            buffer.putShort((short) header.method);
+            buffer.putInt((int) header.dosTime);
+            buffer.putInt((int) header.crc);
+            buffer.putInt((int) (zip64CompressedSize ? ZIP64_MAGIC : header.compressedSize));
+            buffer.putInt((int) (zip64Size ? ZIP64_MAGIC : header.size));
+            buffer.putShort((short) name.length);
+            buffer.putShort((short) extraLength);
+            // comment, disk number, internal and external attributes
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 0);
+            buffer.putInt(0);
+            buffer.putInt((int) (zip64Offset ? ZIP64_MAGIC : header.localHeaderOffset));
+            buffer.put(name);
+            if (zip64Length > 0) {
+                buffer.putShort((short) JModFile.ZIP64_EXTRA_ID);
+                buffer.putShort((short) zip64Length);
+                if (zip64Size) {
+                    buffer.putLong(header.size);
+                }
+                if (zip64CompressedSize) {
+                    buffer.putLong(header.compressedSize);
+                }
+                if (zip64Offset) {
+                    buffer.putLong(header.localHeaderOffset);
+                }
+            }
+            out.write(buffer.array());
+        }
+        long end = out.getCount();
+        long offset = start - JModFile.MAGIC.length;
+        long length = end - start;
+        int count = headers.size();
+
+        if (count >= ZIP64_MAGIC_COUNT || offset >= ZIP64_MAGIC || length >= ZIP64_MAGIC) {
+            ByteBuffer zip64 = newBuffer(56 + 20);
+            zip64.putInt(ZIP64_END_HEADER_SIGNATURE);
+            zip64.putLong(56 - 12);
+            zip64.putShort((short) ZIP64_VERSION);
+            zip64.putShort((short) ZIP64_VERSION);
+            zip64.putInt(0);
+            zip64.putInt(0);
+            zip64.putLong(count);
+            zip64.putLong(count);
+            zip64.putLong(length);
+            zip64.putLong(offset);
+            // the locator, its offset is relative to the file, which is where java.util.zip.ZipFile looks
+            zip64.putInt(ZIP64_LOCATOR_SIGNATURE);
+            zip64.putInt(0);
+            zip64.putLong(end);
+            zip64.putInt(1);
+            out.write(zip64.array());
+            count = Math.min(count, ZIP64_MAGIC_COUNT);
+            offset = Math.min(offset, ZIP64_MAGIC);
+            length = Math.min(length, ZIP64_MAGIC);
+        }
+
+        ByteBuffer buffer = newBuffer(22);
+        buffer.putInt(END_HEADER_SIGNATURE);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) count);
+        buffer.putShort((short) count);
+        buffer.putInt((int) length);
+        buffer.putInt((int) offset);
+        buffer.putShort((short) 0);
+        out.write(buffer.array());
+    }
+
+    /**
+     * Close the file, which is incomplete unless {@link #finish()} has been called.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static ByteBuffer newBuffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @param time the time in milliseconds since the epoch
+     * @return the time in the MS-DOS format of the zip headers, in the default time zone like the zip streams
+     */
+    private static long dosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * The central directory header of a written entry.
+     */
+    private static final class CentralHeader {
+        private final String name;
+
+        private final int method;
+
+        private final long dosTime;
+
+        private final long localHeaderOffset;
+
+        private int flags;
+
+        private long crc;
+
+        private long compressedSize;
+
+        private long size;
+
+        CentralHeader(
+                String name,
+                int method,
+                long dosTime,
+                long crc,
+                long compressedSize,
+                long size,
+                long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+    /**
+     * Counts the written bytes, which gives the offsets of the headers, and passes them to the checksums.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final JModChecksums checksums;
+
+        private long count;
+
+        CountingOutputStream(OutputStream out, JModChecksums checksums) {
+            super(out);
+            this.checksums = checksums;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+            if (checksums != null) {
+                checksums.update(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+            if (checksums != null) {
+                checksums.update(b, off, len);
+            }
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
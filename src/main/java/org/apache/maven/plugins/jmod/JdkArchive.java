@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The <code>jmods</code> folder of a JDK archive, a <code>tar.gz</code> or <code>zip</code> file as the JDK vendors
+ * publish them for each platform. Only the <code>jmod</code> files of the top level folder are extracted, once, into a
+ * cache directory by the SHA-256 of the archive; later builds use the extracted folder.
+ */
+final class JdkArchive {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    private static final String JAVA_BASE_JMOD = "java.base.jmod";
+
+    private final File jmodsDirectory;
+
+    private final boolean cached;
+
+    private final int extracted;
+
+    private JdkArchive(File jmodsDirectory, boolean cached, int extracted) {
+        this.jmodsDirectory = jmodsDirectory;
+        this.cached = cached;
+        this.extracted = extracted;
+    }
+
+    /**
+     * Extract the <code>jmods</code> folder of a JDK archive unless it is in the cache already. The extraction
+     * happens in a temporary directory which is moved into the cache, so concurrent builds never see a partially
+     * extracted folder.
+     *
+     * @param archive the <code>tar.gz</code> or <code>zip</code> file of the JDK
+     * @param cacheDirectory the directory the extracted folders are kept in
+     * @return the extracted folder
+     * @throws IOException in case the archive can not be read or contains no <code>jmods</code> folder
+     */
+    static JdkArchive extract(File archive, File cacheDirectory) throws IOException {
+        String key = "jdk-" + sha256(archive);
+        File entry = new File(cacheDirectory, key);
+        if (new File(entry, JAVA_BASE_JMOD).isFile()) {
+            return new JdkArchive(entry, true, 0);
+        }
+
+        if (!cacheDirectory.mkdirs() && !cacheDirectory.isDirectory()) {
+            throw new IOException("Unable to create directory " + cacheDirectory.getAbsolutePath());
+        }
+        File pending = new File(cacheDirectory, key + '.' + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectory(pending.toPath());
+            int extracted = isZip(archive) ? extractZip(archive, pending) : extractTarGz(archive, pending);
+            if (!new File(pending, JAVA_BASE_JMOD).isFile()) {
+                throw new IOException("The JDK archive " + archive + " contains no jmods folder with " + JAVA_BASE_JMOD
+                        + ", see https://openjdk.org/jeps/493");
+            }
+            try {
+                Files.move(pending.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // extracted by a concurrent build in the meantime
+            }
+            return new JdkArchive(entry, false, extracted);
+        } finally {
+            if (pending.exists()) {
+                Directories.delete(pending);
+            }
+        }
+    }
+
+    private static boolean isZip(File archive) throws IOException {
+        try (InputStream in = new FileInputStream(archive)) {
+            return in.read() == 'P' && in.read() == 'K';
+        }
+    }
+
+    private static int extractZip(File archive, File directory) throws IOException {
+        int extracted = 0;
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = jmodFileName(entry.getName());
+                if (name != null && !entry.isDirectory()) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        Files.copy(in, new File(directory, name).toPath());
+                    }
+                    extracted++;
+                }
+            }
+        }
+        return extracted;
+    }
+
+    /**
+     * Read the <code>tar</code> format of POSIX, including the long names of GNU and pax, as far as the names of the
+     * entries are concerned.
+     */
+    private static int extractTarGz(File archive, File directory) throws IOException {
+        int extracted = 0;
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(archive)), BUFFER_SIZE)) {
+            byte[] header = new byte[TAR_BLOCK_SIZE];
+            String longName = null;
+            while (readFully(in, header) && header[0] != 0) {
+                long size = tarNumber(header, 124, 12);
+                byte type = header[156];
+                String name = longName != null ? longName : tarName(header);
+                longName = null;
+                if (type == 'L') {
+                    longName = trimNul(new String(readData(in, size), StandardCharsets.UTF_8));
+                    continue;
+                } else if (type == 'x') {
+                    longName = paxPath(readData(in, size));
+                    continue;
+                }
+                String fileName = type == '0' || type == 0 ? jmodFileName(name) : null;
+                if (fileName != null) {
+                    Files.copy(new BoundedInputStream(in, size), new File(directory, fileName).toPath());
+                    extracted++;
+                    skip(in, padding(size));
+                } else {
+                    skip(in, size + padding(size));
+                }
+            }
+        }
+        return extracted;
+    }
+
+    /**
+     * The <code>jmods</code> folder is the one of the top level directory of the JDK,
+     * <code>&lt;top&gt;/jmods/*.jmod</code>, or <code>&lt;top&gt;/Contents/Home/jmods/*.jmod</code> in the bundle
+     * layout of the macOS archives. Folders of the same name deeper in the archive, like the ones of a bundled
+     * sample, are ignored.
+     *
+     * @param path the path of an entry of the archive
+     * @return the name of the file if the entry is a <code>jmod</code> file of the <code>jmods</code> folder
+     */
+    private static String jmodFileName(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.replace('\\', '/').split("/")) {
+            if (!segment.isEmpty() && !".".equals(segment)) {
+                segments.add(segment);
+            }
+        }
+        int size = segments.size();
+        boolean topLevel =
+                size == 3 || size == 5 && "Contents".equals(segments.get(1)) && "Home".equals(segments.get(2));
+        if (topLevel
+                && "jmods".equals(segments.get(size - 2))
+                && segments.get(size - 1).endsWith(".jmod")) {
+            return segments.get(size - 1);
+        }
+        return null;
+    }
+
+    private static String tarName(byte[] header) {
+        String name = tarString(header, 0, 100);
+        if (tarString(header, 257, 6).startsWith("ustar")) {
+            String prefix = tarString(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + '/' + name;
+            }
+        }
+        return name;
+    }
+
+    private static String tarString(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the octal number of a field, or the binary number if the first bit is set
+     */
+    private static long tarNumber(byte[] header, int offset, int length) throws IOException {
+        long value = 0;
+        if ((header[offset] & 0x80) != 0) {
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b >= '0' && b <= '7') {
+                value = (value << 3) | (b - '0');
+            } else if (b != ' ' && b != 0) {
+                throw new IOException("Invalid tar header");
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the <code>path</code> of the records <code>length key=value\n</code> of an extended pax header, or
+     *         <code>null</code> if there is none
+     */
+    private static String paxPath(byte[] data) {
+        int offset = 0;
+        while (offset < data.length) {
+            int space = offset;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            if (space == data.length) {
+                break;
+            }
+            int length = Integer.parseInt(new String(data, offset, space - offset, StandardCharsets.US_ASCII));
+            if (length <= 0 || offset + length > data.length) {
+                break;
+            }
+            String record = new String(data, space + 1, offset + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                return record.substring("path=".length());
+            }
+            offset += length;
+        }
+        return null;
+    }
+
+    private static String trimNul(String s) {
+        int nul = s.indexOf(0);
+        return nul < 0 ? s : s.substring(0, nul);
+    }
+
+    private static long padding(long size) {
+        return (TAR_BLOCK_SIZE - size % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE;
+    }
+
+    private static byte[] readData(InputStream in, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Invalid tar header");
+        }
+        byte[] data = new byte[(int) size];
+        if (!readFully(in, data)) {
+            throw new EOFException("Truncated tar entry");
+        }
+        skip(in, padding(size));
+        return data;
+    }
+
+    /**
+     * @return <code>false</code> at the end of the stream
+     */
+    private static boolean readFully(InputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int n = in.read(buffer, offset, buffer.length - offset);
+            if (n < 0) {
+                if (offset == 0) {
+                    return false;
+                }
+                throw new EOFException("Truncated tar archive");
+            }
+            offset += n;
+        }
+        return true;
+    }
+
+    private static void skip(InputStream in, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long n = in.skip(remaining);
+            if (n <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Truncated tar archive");
+                }
+                n = 1;
+            }
+            remaining -= n;
+        }
+    }
+
+    private static String sha256(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @return the directory with the <code>jmod</code> files of the JDK
+     */
+    File getJmodsDirectory() {
+        return jmodsDirectory;
+    }
+
+    /**
+     * @return whether the folder has been extracted by an earlier build
+     */
+    boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * @return the number of <code>jmod</code> files which have been extracted by this build
+     */
+    int getExtracted() {
+        return extracted;
+    }
+
+    /**
+     * The data of an entry of a <code>tar</code> stream, which must not close the stream.
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long size) {
+            this.in = in;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated tar entry");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) {
+                throw new EOFException("Truncated tar entry");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // the stream of the archive stays open
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The <code>release</code> file of a JDK, which contains its version.
+ */
+final class JdkRelease {
+
+    private static final Pattern JAVA_VERSION = Pattern.compile("JAVA_VERSION=\"(?:1\\.)?(\\d+)[^\"]*\"");
+
+    private JdkRelease() {}
+
+    /**
+     * @param javaHome the home directory of the JDK
+     * @return the content of the release file, or <code>null</code> if the JDK has none
+     */
+    static byte[] read(File javaHome) throws IOException {
+        File releaseFile = new File(javaHome, "release");
+        return releaseFile.isFile() ? Files.readAllBytes(releaseFile.toPath()) : null;
+    }
+
+    /**
+     * @param release the content of the release file
+     * @return the feature version, for example <code>17</code> for <code>17.0.9</code> and <code>8</code> for
+     *         <code>1.8.0_392</code>, or <code>-1</code> if the release file does not contain the version
+     */
+    static int featureVersion(byte[] release) {
+        Matcher matcher = JAVA_VERSION.matcher(new String(release, StandardCharsets.UTF_8));
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * @param javaHome the home directory of the JDK
+     * @return the feature version, or <code>-1</code> if it is unknown
+     */
+    static int featureVersion(File javaHome) throws IOException {
+        byte[] release = read(javaHome);
+        return release == null ? -1 : featureVersion(release);
+    }
+}
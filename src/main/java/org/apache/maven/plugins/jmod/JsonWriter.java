@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Minimal streaming writer for the JSON reports of the plugin, so we don't need an additional dependency.
+ */
+final class JsonWriter implements Closeable {
+
+    private final Writer writer;
+
+    /**
+     * For each open object or array whether it already contains an element.
+     */
+    private final Deque<Boolean> scopes = new ArrayDeque<>();
+
+    private final boolean compact;
+
+    private boolean afterName;
+
+    JsonWriter(Writer writer) {
+        this(writer, false);
+    }
+
+    /**
+     * @param writer the writer to write to
+     * @param compact whether to write everything on a single line, for example for JSON lines files
+     */
+    JsonWriter(Writer writer, boolean compact) {
+        this.writer = writer;
+        this.compact = compact;
+    }
+
+    /**
+     * Create a writer for the given file, the parent directories are created if needed.
+     */
+    static JsonWriter create(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Unable to create directory " + parent.getAbsolutePath());
+        }
+        return new JsonWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        writer.write(compact ? ":" : ": ");
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            writer.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        separate();
+        writer.write(Long.toString(value));
+        return this;
+    }
+
+    JsonWriter value(double value) throws IOException {
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writer.write("null");
+        } else {
+            writer.write(Double.toString(value));
+        }
+        return this;
+    }
+
+    JsonWriter value(boolean value) throws IOException {
+        separate();
+        writer.write(Boolean.toString(value));
+        return this;
+    }
+
+    JsonWriter property(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(String name, double value) throws IOException {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(String name, boolean value) throws IOException {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(String name, Collection<String> values) throws IOException {
+        name(name).beginArray();
+        for (String value : values) {
+            value(value);
+        }
+        return endArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.write('\n');
+        writer.close();
+    }
+
+    private JsonWriter open(char c) throws IOException {
+        separate();
+        writer.write(c);
+        scopes.push(Boolean.FALSE);
+        return this;
+    }
+
+    private JsonWriter close(char c) throws IOException {
+        boolean hasElements = scopes.pop();
+        if (hasElements) {
+            newLine();
+        }
+        writer.write(c);
+        return this;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (!scopes.isEmpty()) {
+            if (scopes.peek()) {
+                writer.write(',');
+            } else {
+                scopes.pop();
+                scopes.push(Boolean.TRUE);
+            }
+            newLine();
+        }
+    }
+
+    private void newLine() throws IOException {
+        if (compact) {
+            return;
+        }
+        writer.write('\n');
+        for (int i = 0; i < scopes.size(); i++) {
+            writer.write("  ");
+        }
+    }
+
+    private void string(String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ByteVector;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * The content of a <code>module-info.class</code> file, read via ASM so it works on every Java version Maven runs on.
+ * All directives are kept as sorted strings, for example <code>requires transitive java.sql</code>, which makes
+ * them easy to compare and to report.
+ */
+final class ModuleInfo {
+
+    static final String MODULE_INFO_CLASS = "module-info.class";
+
+    private static final String MODULE_TARGET = "ModuleTarget";
+
+    private String name;
+
+    private String version;
+
+    private String mainClass;
+
+    private boolean open;
+
+    private String targetPlatform;
+
+    private final Set<String> directives = new TreeSet<>();
+
+    private final Set<String> packages = new TreeSet<>();
+
+    private ModuleInfo() {}
+
+    /**
+     * @param in the content of a <code>module-info.class</code> file
+     * @return the module descriptor
+     * @throws IOException if the content can not be read or is not a module descriptor
+     */
+    static ModuleInfo read(InputStream in) throws IOException {
+        final ModuleInfo info = new ModuleInfo();
+        try {
+            new ClassReader(in)
+                    .accept(
+                            new ClassVisitor(Opcodes.ASM9) {
+                                @Override
+                                public ModuleVisitor visitModule(String name, int access, String version) {
+                                    info.name = name;
+                                    info.version = version;
+                                    info.open = (access & Opcodes.ACC_OPEN) != 0;
+                                    return info.new DirectiveCollector();
+                                }
+
+                                @Override
+                                public void visitAttribute(Attribute attribute) {
+                                    if (attribute instanceof ModuleTargetAttribute) {
+                                        info.targetPlatform = ((ModuleTargetAttribute) attribute).targetPlatform;
+                                    }
+                                }
+                            },
+                            new Attribute[] {new ModuleTargetAttribute(null)},
+                            ClassReader.SKIP_CODE);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid module descriptor: " + e.getMessage(), e);
+        }
+        if (info.name == null) {
+            throw new IOException("The class file is not a module descriptor.");
+        }
+        return info;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getVersion() {
+        return version;
+    }
+
+    String getMainClass() {
+        return mainClass;
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @return the platform of the <code>ModuleTarget</code> attribute, for example <code>linux-amd64</code>
+     */
+    String getTargetPlatform() {
+        return targetPlatform;
+    }
+
+    /**
+     * @return the <code>requires</code>, <code>exports</code>, <code>opens</code>, <code>uses</code> and
+     *         <code>provides</code> directives
+     */
+    Set<String> getDirectives() {
+        return directives;
+    }
+
+    /**
+     * @return the packages of the <code>ModulePackages</code> attribute
+     */
+    Set<String> getPackages() {
+        return packages;
+    }
+
+    /**
+     * Compare this module descriptor with a previous one.
+     *
+     * @param previous the previous descriptor
+     * @return the differences, each prefixed with <code>+</code>, <code>-</code> or <code>~</code>
+     */
+    List<String> diff(ModuleInfo previous) {
+        List<String> changes = new ArrayList<>();
+        diff(changes, "name", previous.name, name);
+        diff(changes, "version", previous.version, version);
+        diff(changes, "main class", previous.mainClass, mainClass);
+        diff(changes, "open", String.valueOf(previous.open), String.valueOf(open));
+        diff(changes, "", previous.directives, directives);
+        diff(changes, "package ", previous.packages, packages);
+        return changes;
+    }
+
+    /**
+     * Rewrite the attributes of a module descriptor which the <code>jmod</code> tool adds: <code>ModulePackages</code>,
+     * <code>ModuleMainClass</code> and <code>ModuleTarget</code>. The class writer shares the constant pool of the
+     * reader, so the other attributes which ASM does not know, like <code>ModuleHashes</code>, stay valid.
+     *
+     * @param moduleInfo the content of the <code>module-info.class</code>
+     * @param packages the packages of the module, <code>null</code> keeps the ones of the descriptor
+     * @param mainClass the fully qualified main class, <code>null</code> keeps the one of the descriptor
+     * @param targetPlatform the target platform, for example <code>linux-amd64</code>, <code>null</code> keeps the
+     *            one of the descriptor
+     * @return the content with the given attributes
+     * @throws IOException if the content is not a module descriptor, or if it refers to a package which is not one of
+     *             the given packages
+     */
+    static byte[] withAttributes(
+            byte[] moduleInfo, final Collection<String> packages, final String mainClass, final String targetPlatform)
+            throws IOException {
+        final Set<String> referenced = new TreeSet<>();
+        ClassWriter writer;
+        try {
+            ClassReader reader = new ClassReader(moduleInfo);
+            writer = new ClassWriter(reader, 0);
+            reader.accept(
+                    new ClassVisitor(Opcodes.ASM9, writer) {
+                        @Override
+                        public ModuleVisitor visitModule(String name, int access, String version) {
+                            return new ModuleVisitor(Opcodes.ASM9, super.visitModule(name, access, version)) {
+                                @Override
+                                public void visitMainClass(String current) {
+                                    if (mainClass == null) {
+                                        super.visitMainClass(current);
+                                        referenced.add(packageOf(current));
+                                    }
+                                }
+
+                                @Override
+                                public void visitPackage(String packaze) {
+                                    if (packages == null) {
+                                        super.visitPackage(packaze);
+                                    }
+                                }
+
+                                @Override
+                                public void visitExport(String packaze, int access, String... modules) {
+                                    super.visitExport(packaze, access, modules);
+                                    referenced.add(packaze);
+                                }
+
+                                @Override
+                                public void visitOpen(String packaze, int access, String... modules) {
+                                    super.visitOpen(packaze, access, modules);
+                                    referenced.add(packaze);
+                                }
+
+                                @Override
+                                public void visitProvide(String service, String... providers) {
+                                    super.visitProvide(service, providers);
+                                    for (String provider : providers) {
+                                        referenced.add(packageOf(provider));
+                                    }
+                                }
+
+                                @Override
+                                public void visitEnd() {
+                                    if (mainClass != null) {
+                                        String internalName = mainClass.replace('.', '/');
+                                        super.visitMainClass(internalName);
+                                        referenced.add(packageOf(internalName));
+                                    }
+                                    if (packages != null) {
+                                        for (String packaze : new TreeSet<>(packages)) {
+                                            super.visitPackage(packaze.replace('.', '/'));
+                                        }
+                                    }
+                                    super.visitEnd();
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void visitAttribute(Attribute attribute) {
+                            if (targetPlatform == null || !MODULE_TARGET.equals(attribute.type)) {
+                                super.visitAttribute(attribute);
+                            }
+                        }
+
+                        @Override
+                        public void visitEnd() {
+                            if (targetPlatform != null) {
+                                super.visitAttribute(new ModuleTargetAttribute(targetPlatform));
+                            }
+                            super.visitEnd();
+                        }
+                    },
+                    0);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid module descriptor: " + e.getMessage(), e);
+        }
+        if (packages != null) {
+            for (String packaze : referenced) {
+                if (!packages.contains(external(packaze))) {
+                    throw new IOException("the module descriptor refers to the package " + external(packaze)
+                            + ", which the module does not contain");
+                }
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    private static String packageOf(String internalName) {
+        int index = internalName.lastIndexOf('/');
+        return index < 0 ? "" : internalName.substring(0, index);
+    }
+
+    private static void diff(List<String> changes, String label, String before, String after) {
+        if (before == null ? after != null : !before.equals(after)) {
+            changes.add("~ " + label + ": " + before + " -> " + after);
+        }
+    }
+
+    private static void diff(List<String> changes, String prefix, Set<String> before, Set<String> after) {
+        for (String s : before) {
+            if (!after.contains(s)) {
+                changes.add("- " + prefix + s);
+            }
+        }
+        for (String s : after) {
+            if (!before.contains(s)) {
+                changes.add("+ " + prefix + s);
+            }
+        }
+    }
+
+    private static String external(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private static String modifiers(int access) {
+        StringBuilder sb = new StringBuilder();
+        if ((access & Opcodes.ACC_TRANSITIVE) != 0) {
+            sb.append("transitive ");
+        }
+        if ((access & Opcodes.ACC_STATIC_PHASE) != 0) {
+            sb.append("static ");
+        }
+        return sb.toString();
+    }
+
+    private static String targets(String[] modules) {
+        if (modules == null || modules.length == 0) {
+            return "";
+        }
+        String[] sorted = modules.clone();
+        Arrays.sort(sorted);
+        return " to " + String.join(", ", sorted);
+    }
+
+    private final class DirectiveCollector extends ModuleVisitor {
+        DirectiveCollector() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visitMainClass(String mainClass) {
+            ModuleInfo.this.mainClass = external(mainClass);
+        }
+
+        @Override
+        public void visitPackage(String packaze) {
+            packages.add(external(packaze));
+        }
+
+        @Override
+        public void visitRequire(String module, int access, String version) {
+            directives.add("requires " + modifiers(access) + module);
+        }
+
+        @Override
+        public void visitExport(String packaze, int access, String... modules) {
+            directives.add("exports " + external(packaze) + targets(modules));
+        }
+
+        @Override
+        public void visitOpen(String packaze, int access, String... modules) {
+            directives.add("opens " + external(packaze) + targets(modules));
+        }
+
+        @Override
+        public void visitUse(String service) {
+            directives.add("uses " + external(service));
+        }
+
+        @Override
+        public void visitProvide(String service, String... providers) {
+            String[] names = new String[providers.length];
+            for (int i = 0; i < providers.length; i++) {
+                names[i] = external(providers[i]);
+            }
+            directives.add("provides " + external(service) + " with " + String.join(", ", names));
+        }
+    }
+
+    /**
+     * <code>ModuleTarget_attribute { u2 attribute_name_index; u4 attribute_length; u2 target_platform_index; }</code>
+     */
+    private static final class ModuleTargetAttribute extends Attribute {
+        private final String targetPlatform;
+
+        ModuleTargetAttribute(String targetPlatform) {
+            super(MODULE_TARGET);
+            this.targetPlatform = targetPlatform;
+        }
+
+        @Override
+        protected Attribute read(
+                ClassReader classReader, int offset, int length, char[] charBuffer, int codeOffset, Label[] labels) {
+            return new ModuleTargetAttribute(classReader.readUTF8(offset, charBuffer));
+        }
+
+        @Override
+        protected ByteVector write(ClassWriter classWriter, byte[] code, int codeLength, int maxStack, int maxLocals) {
+            return new ByteVector().putShort(classWriter.newUTF8(targetPlatform));
+        }
+    }
+}
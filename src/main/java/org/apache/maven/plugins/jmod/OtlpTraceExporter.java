@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Exports the phases of a goal execution as trace spans in the OTLP/JSON format: a span for the execution with a
+ * child span for each phase. The spans can be sent to an OTLP/HTTP endpoint, for example
+ * <code>http://localhost:4318/v1/traces</code> of an OpenTelemetry collector, and/or appended to a file with one
+ * export request per line, which is the format of the file exporter of the collector.
+ * <p>
+ * All executions of a build share the same trace. If the environment variable <code>TRACEPARENT</code> contains a
+ * W3C trace context, for example set by the CI server, the executions become part of that trace.
+ */
+final class OtlpTraceExporter {
+
+    private static final String INSTRUMENTATION_SCOPE = "org.apache.maven.plugins.jmod";
+
+    private static final Pattern TRACEPARENT = Pattern.compile("[0-9a-f]{2}-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}");
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+
+    private static final int STATUS_CODE_OK = 1;
+
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final Map<MavenSession, String[]> TRACES = new WeakHashMap<>();
+
+    private final String endpoint;
+
+    private final File file;
+
+    /**
+     * @param endpoint the OTLP/HTTP traces endpoint, can be <code>null</code>
+     * @param file the file to append the spans to, can be <code>null</code>
+     */
+    OtlpTraceExporter(String endpoint, File file) {
+        this.endpoint = endpoint;
+        this.file = file;
+    }
+
+    /**
+     * Export the spans of an execution.
+     *
+     * @param session the session, which determines the trace
+     * @param name the name of the execution span, for example <code>jmod:create</code>
+     * @param timer the stopped timer of the execution
+     * @param resource the attributes of the resource, for example the project
+     * @param success whether the execution has been successful
+     * @throws IOException in case the spans can not be sent or written
+     */
+    void export(MavenSession session, String name, PhaseTimer timer, Map<String, Object> resource, boolean success)
+            throws IOException {
+        String json = toJson(trace(session), name, timer, resource, success);
+        if (file != null) {
+            append(json);
+        }
+        if (endpoint != null) {
+            post(json);
+        }
+    }
+
+    private static String toJson(
+            String[] trace, String name, PhaseTimer timer, Map<String, Object> resource, boolean success)
+            throws IOException {
+        String traceId = trace[0];
+        String parentSpanId = trace[1];
+        String spanId = randomHex(8);
+
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out, true)) {
+            json.beginObject().name("resourceSpans").beginArray().beginObject();
+            json.name("resource").beginObject();
+            writeAttributes(json, resource);
+            json.endObject();
+            json.name("scopeSpans").beginArray().beginObject();
+            json.name("scope")
+                    .beginObject()
+                    .property("name", INSTRUMENTATION_SCOPE)
+                    .endObject();
+            json.name("spans").beginArray();
+
+            writeSpan(json, traceId, spanId, parentSpanId, name);
+            json.property("startTimeUnixNano", epochNanos(timer, timer.getStartNanos()))
+                    .property("endTimeUnixNano", epochNanos(timer, timer.getEndNanos()));
+            writeAttributes(json, timer.getAttributes());
+            json.name("status")
+                    .beginObject()
+                    .property("code", success ? STATUS_CODE_OK : STATUS_CODE_ERROR)
+                    .endObject();
+            json.endObject();
+
+            for (PhaseTimer.Phase phase : timer.getPhases()) {
+                writeSpan(json, traceId, randomHex(8), spanId, phase.getName());
+                long end = phase.getEndNanos() < 0 ? timer.getEndNanos() : phase.getEndNanos();
+                json.property("startTimeUnixNano", epochNanos(timer, phase.getStartNanos()))
+                        .property("endTimeUnixNano", epochNanos(timer, end));
+                writeAttributes(json, phase.getAttributes());
+                json.endObject();
+            }
+
+            json.endArray();
+            json.endObject().endArray();
+            json.endObject().endArray();
+            json.endObject();
+        }
+        return out.toString();
+    }
+
+    private static void writeSpan(JsonWriter json, String traceId, String spanId, String parentSpanId, String name)
+            throws IOException {
+        json.beginObject().property("traceId", traceId).property("spanId", spanId);
+        if (parentSpanId != null) {
+            json.property("parentSpanId", parentSpanId);
+        }
+        json.property("name", name).property("kind", SPAN_KIND_INTERNAL);
+    }
+
+    private static void writeAttributes(JsonWriter json, Map<String, Object> attributes) throws IOException {
+        json.name("attributes").beginArray();
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            Object value = attribute.getValue();
+            json.beginObject().property("key", attribute.getKey());
+            json.name("value").beginObject();
+            if (value instanceof Boolean) {
+                json.property("boolValue", (Boolean) value);
+            } else if (value instanceof Long || value instanceof Integer) {
+                // 64 bit integers are strings in OTLP/JSON
+                json.property("intValue", String.valueOf(value));
+            } else if (value instanceof Double) {
+                json.property("doubleValue", (Double) value);
+            } else {
+                json.property("stringValue", String.valueOf(value));
+            }
+            json.endObject().endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * OTLP wants the wall clock time, which is derived from the start time of the timer and the monotonic clock.
+     */
+    private static String epochNanos(PhaseTimer timer, long nanos) {
+        return Long.toString(timer.getStartMillis() * 1_000_000L + (nanos - timer.getStartNanos()));
+    }
+
+    /**
+     * @return the trace id and the parent span id (can be <code>null</code>) of the session
+     */
+    private static String[] trace(MavenSession session) {
+        synchronized (TRACES) {
+            String[] trace = TRACES.get(session);
+            if (trace == null) {
+                String traceparent = System.getenv("TRACEPARENT");
+                Matcher matcher = TRACEPARENT.matcher(traceparent == null ? "" : traceparent.trim());
+                if (matcher.matches()) {
+                    trace = new String[] {matcher.group(1), matcher.group(2)};
+                } else {
+                    trace = new String[] {randomHex(16), null};
+                }
+                TRACES.put(session, trace);
+            }
+            return trace;
+        }
+    }
+
+    private static String randomHex(int bytes) {
+        byte[] id = new byte[bytes];
+        RANDOM.nextBytes(id);
+        StringBuilder sb = new StringBuilder(bytes * 2);
+        for (byte b : id) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private void append(String json) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Unable to create directory " + parent.getAbsolutePath());
+        }
+        // executions of a parallel build may share the file
+        synchronized (OtlpTraceExporter.class) {
+            try (OutputStream out = new FileOutputStream(file, true)) {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private void post(String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        try {
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            if (status < 200 || status >= 300) {
+                throw new IOException("The endpoint " + endpoint + " answered with HTTP status " + status);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
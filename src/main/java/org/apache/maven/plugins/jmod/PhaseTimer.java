@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures the phases of a goal execution with the monotonic {@link System#nanoTime()} clock. Phases are sequential:
+ * starting a phase ends the current one. The execution and each phase can carry attributes like entry counts or
+ * sizes, which are exported with the trace spans. Attributes can be set by other threads of the goal, for example
+ * for the forked processes of parallel conversions.
+ */
+final class PhaseTimer {
+
+    private long startNanos = System.nanoTime();
+
+    private long startMillis = System.currentTimeMillis();
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    private Phase current;
+
+    private long endNanos = -1;
+
+    /**
+     * End the current phase and start a new one.
+     *
+     * @param name the name of the new phase
+     */
+    synchronized void phase(String name) {
+        long now = System.nanoTime();
+        endPhase(now);
+        current = new Phase(name, now);
+        phases.add(current);
+    }
+
+    /**
+     * Start the timer again and drop the phases and attributes measured so far, for goals which repeat their work.
+     */
+    synchronized void restart() {
+        startNanos = System.nanoTime();
+        startMillis = System.currentTimeMillis();
+        phases.clear();
+        attributes.clear();
+        current = null;
+        endNanos = -1;
+    }
+
+    /**
+     * Stop the timer, including the current phase.
+     */
+    synchronized void stop() {
+        if (endNanos < 0) {
+            endNanos = System.nanoTime();
+            endPhase(endNanos);
+        }
+    }
+
+    /**
+     * Set an attribute of the current phase, or of the execution if there is no current phase.
+     *
+     * @param key the key, for example <code>jmod.entries</code>
+     * @param value a {@link String}, {@link Long}, {@link Integer}, {@link Double} or {@link Boolean}
+     */
+    synchronized void attribute(String key, Object value) {
+        if (current != null) {
+            current.attributes.put(key, value);
+        } else {
+            attributes.put(key, value);
+        }
+    }
+
+    /**
+     * @return the attributes of the execution
+     */
+    Map<String, Object> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    private void endPhase(long now) {
+        if (current != null) {
+            current.endNanos = now;
+            current = null;
+        }
+    }
+
+    List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * @return the wall clock time the timer has been created
+     */
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getEndNanos() {
+        return endNanos < 0 ? System.nanoTime() : endNanos;
+    }
+
+    long getElapsedNanos() {
+        return (endNanos < 0 ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    /**
+     * @return for example <code>1234 ms (toolchain 5 ms, resolve-paths 300 ms, jmod 920 ms)</code>
+     */
+    String summary() {
+        StringBuilder sb = new StringBuilder(millis(getElapsedNanos()));
+        if (!phases.isEmpty()) {
+            sb.append(" (");
+            for (int i = 0; i < phases.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(phases.get(i).getName())
+                        .append(' ')
+                        .append(millis(phases.get(i).getDurationNanos()));
+            }
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the phases as JSON array elements.
+     */
+    void writePhases(JsonWriter json) throws IOException {
+        json.beginArray();
+        for (Phase phase : phases) {
+            json.beginObject()
+                    .property("name", phase.getName())
+                    .property("startMillis", toMillis(phase.startNanos - startNanos))
+                    .property("durationMillis", toMillis(phase.getDurationNanos()));
+            if (!phase.attributes.isEmpty()) {
+                json.name("attributes").beginObject();
+                for (Map.Entry<String, Object> attribute : phase.attributes.entrySet()) {
+                    Object value = attribute.getValue();
+                    if (value instanceof Boolean) {
+                        json.property(attribute.getKey(), (Boolean) value);
+                    } else if (value instanceof Long || value instanceof Integer) {
+                        json.property(attribute.getKey(), ((Number) value).longValue());
+                    } else if (value instanceof Double) {
+                        json.property(attribute.getKey(), (Double) value);
+                    } else {
+                        json.property(attribute.getKey(), String.valueOf(value));
+                    }
+                }
+                json.endObject();
+            }
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%d ms", Math.round(nanos / 1_000_000.0));
+    }
+
+    /**
+     * A measured phase.
+     */
+    static final class Phase {
+        private final String name;
+
+        private final long startNanos;
+
+        private long endNanos = -1;
+
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+        Phase(String name, long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        long getStartNanos() {
+            return startNanos;
+        }
+
+        long getEndNanos() {
+            return endNanos;
+        }
+
+        Map<String, Object> getAttributes() {
+            return Collections.unmodifiableMap(attributes);
+        }
+
+        long getDurationNanos() {
+            return (endNanos < 0 ? System.nanoTime() : endNanos) - startNanos;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.util.List;
+
+/**
+ * A platform specific variant of the <code>jmod</code> file, which is attached with its own classifier. The variant
+ * shares the classes and the other sections with the <code>jmod</code> file of the project and has its own native
+ * libraries, native commands and target platform.
+ *
+ * <pre>
+ * &lt;platform&gt;
+ *   &lt;classifier&gt;linux-aarch64&lt;/classifier&gt;
+ *   &lt;targetPlatform&gt;linux-aarch64&lt;/targetPlatform&gt;
+ *   &lt;libs&gt;
+ *     &lt;lib&gt;src/main/libs-linux-aarch64&lt;/lib&gt;
+ *   &lt;/libs&gt;
+ * &lt;/platform&gt;
+ * </pre>
+ */
+public class Platform {
+
+    /**
+     * The classifier of the variant, which is part of its file name.
+     */
+    private String classifier;
+
+    /**
+     * The target platform which is recorded in the module descriptor, for example <code>linux-amd64</code>. Without a
+     * value the target platform of the <code>jmod</code> file of the project is kept.
+     */
+    private String targetPlatform;
+
+    /**
+     * The directories of the native libraries, relative to the project base directory. Without a value the native
+     * libraries of the <code>jmod</code> file of the project are kept.
+     */
+    private List<String> libs;
+
+    /**
+     * The directories of the native commands, relative to the project base directory. Without a value the native
+     * commands of the <code>jmod</code> file of the project are kept.
+     */
+    private List<String> cmds;
+
+    public String getClassifier() {
+        return classifier;
+    }
+
+    public void setClassifier(String classifier) {
+        this.classifier = classifier;
+    }
+
+    public String getTargetPlatform() {
+        return targetPlatform;
+    }
+
+    public void setTargetPlatform(String targetPlatform) {
+        this.targetPlatform = targetPlatform;
+    }
+
+    public List<String> getLibs() {
+        return libs;
+    }
+
+    public void setLibs(List<String> libs) {
+        this.libs = libs;
+    }
+
+    public List<String> getCmds() {
+        return cmds;
+    }
+
+    public void setCmds(List<String> cmds) {
+        this.cmds = cmds;
+    }
+}
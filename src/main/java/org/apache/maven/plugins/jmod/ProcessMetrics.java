@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Samples the CPU time and the peak resident set size of a forked process and its child processes while it runs.
+ * The command line is executed via a shell, so the <code>jmod</code> process is a child of the forked process.
+ * <p>
+ * On Linux the values are read from <code>/proc/&lt;pid&gt;</code>. Elsewhere the total CPU time is taken from
+ * <code>ProcessHandle</code> where available (Java 9+), the user and system CPU time and the peak RSS are unknown
+ * there. A process can only be sampled while it is alive, so the last sampling interval of its CPU time can be
+ * missing. The peak RSS is the largest sum of the resident set sizes of the processes at a sample, or the largest peak
+ * of a single process if that is larger, because the peaks of the processes are usually not at the same time.
+ */
+final class ProcessMetrics {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 10;
+
+    /**
+     * The unit of the CPU times in <code>/proc/&lt;pid&gt;/stat</code>, which is 100 on all common Linux platforms.
+     */
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    private static final File PROC = new File("/proc");
+
+    /**
+     * The methods of <code>ProcessHandle</code> (Java 9+), which are <code>null</code> on Java 8.
+     */
+    private static final Method PID;
+
+    private static final Method TO_HANDLE;
+
+    private static final Method DESCENDANTS;
+
+    private static final Method INFO;
+
+    private static final Method TOTAL_CPU_DURATION;
+
+    static {
+        Method[] methods = new Method[5];
+        try {
+            Class<?> processHandle = Class.forName("java.lang.ProcessHandle");
+            methods[0] = Process.class.getMethod("pid");
+            methods[1] = Process.class.getMethod("toHandle");
+            methods[2] = processHandle.getMethod("descendants");
+            methods[3] = processHandle.getMethod("info");
+            methods[4] = Class.forName("java.lang.ProcessHandle$Info").getMethod("totalCpuDuration");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+            methods = new Method[5];
+        }
+        PID = methods[0];
+        TO_HANDLE = methods[1];
+        DESCENDANTS = methods[2];
+        INFO = methods[3];
+        TOTAL_CPU_DURATION = methods[4];
+    }
+
+    private final Process process;
+
+    private final long pid;
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile long endNanos = -1;
+
+    private volatile long userCpuNanos = -1;
+
+    private volatile long systemCpuNanos = -1;
+
+    private volatile long totalCpuNanos = -1;
+
+    private volatile long peakRssBytes = -1;
+
+    private final Thread sampler;
+
+    private ProcessMetrics(Process process) {
+        this.process = process;
+        this.pid = pid(process);
+        this.sampler = new Thread(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        sample();
+                    }
+                },
+                "jmod-process-metrics");
+        sampler.setDaemon(true);
+    }
+
+    /**
+     * Start sampling a process.
+     *
+     * @param process the process which has just been started
+     * @return the metrics, which are complete once {@link #stop()} has been called
+     */
+    static ProcessMetrics start(Process process) {
+        ProcessMetrics metrics = new ProcessMetrics(process);
+        metrics.sampler.start();
+        return metrics;
+    }
+
+    /**
+     * Wait for the sampling to end, which is the case once the process has terminated.
+     */
+    void stop() {
+        try {
+            sampler.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (endNanos < 0) {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    private void sample() {
+        boolean proc = pid > 0 && new File(PROC, Long.toString(pid)).isDirectory();
+        try {
+            do {
+                if (proc) {
+                    sampleProc();
+                } else {
+                    sampleProcessHandle();
+                }
+            } while (!process.waitFor(SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            // stop sampling
+        } finally {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * The CPU times of a process include its terminated and waited for children (<code>cutime</code> and
+     * <code>cstime</code>), the running children are added separately.
+     */
+    private void sampleProc() {
+        long user = 0;
+        long system = 0;
+        long rss = 0;
+        long peak = 0;
+        for (long id : processTree(pid)) {
+            try {
+                String stat = read(new File(PROC, id + "/stat"));
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                // fields[0] is the 3rd field of the file: utime is the 14th, stime the 15th, cutime and cstime follow
+                user += Long.parseLong(fields[11]) + Long.parseLong(fields[13]);
+                system += Long.parseLong(fields[12]) + Long.parseLong(fields[14]);
+                String status = read(new File(PROC, id + "/status"));
+                rss += statusValue(status, "VmRSS:");
+                peak = Math.max(peak, statusValue(status, "VmHWM:"));
+            } catch (IOException | RuntimeException e) {
+                // the process has terminated in the meantime
+            }
+        }
+        long tickNanos = TimeUnit.SECONDS.toNanos(1) / CLOCK_TICKS_PER_SECOND;
+        userCpuNanos = Math.max(userCpuNanos, user * tickNanos);
+        systemCpuNanos = Math.max(systemCpuNanos, system * tickNanos);
+        totalCpuNanos = Math.max(totalCpuNanos, (user + system) * tickNanos);
+        peakRssBytes = Math.max(peakRssBytes, Math.max(rss, peak));
+    }
+
+    private static List<Long> processTree(long root) {
+        List<Long> tree = new ArrayList<>();
+        tree.add(root);
+        for (int i = 0; i < tree.size(); i++) {
+            File[] tasks = new File(PROC, tree.get(i) + "/task").listFiles();
+            if (tasks == null) {
+                continue;
+            }
+            for (File task : tasks) {
+                try {
+                    for (String child : read(new File(task, "children")).trim().split("\\s+")) {
+                        if (!child.isEmpty()) {
+                            tree.add(Long.parseLong(child));
+                        }
+                    }
+                } catch (IOException | NumberFormatException e) {
+                    // no children or the task has terminated
+                }
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * @param name for example <code>VmRSS:</code>
+     * @return the value in bytes of a line of <code>/proc/&lt;pid&gt;/status</code> given in kB
+     */
+    private static long statusValue(String status, String name) {
+        for (String line : status.split("\n")) {
+            if (line.startsWith(name)) {
+                String[] value = line.substring(name.length()).trim().split("\\s+");
+                return Long.parseLong(value[0]) * 1024;
+            }
+        }
+        return 0;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The total CPU time via <code>ProcessHandle.info().totalCpuDuration()</code> of the process and its descendants.
+     */
+    private void sampleProcessHandle() {
+        if (TO_HANDLE == null) {
+            return;
+        }
+        try {
+            Object handle = TO_HANDLE.invoke(process);
+            long total = totalCpuNanos(handle);
+            try (Stream<?> descendants = (Stream<?>) DESCENDANTS.invoke(handle)) {
+                Iterator<?> iterator = descendants.iterator();
+                while (iterator.hasNext()) {
+                    total += totalCpuNanos(iterator.next());
+                }
+            }
+            totalCpuNanos = Math.max(totalCpuNanos, total);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the information is not available
+        }
+    }
+
+    private static long totalCpuNanos(Object handle) throws ReflectiveOperationException {
+        Optional<?> duration = (Optional<?>) TOTAL_CPU_DURATION.invoke(INFO.invoke(handle));
+        return duration.isPresent() ? ((Duration) duration.get()).toNanos() : 0;
+    }
+
+    /**
+     * @return the process id, or <code>-1</code> if unknown
+     */
+    private static long pid(Process process) {
+        try {
+            if (PID != null) {
+                return (Long) PID.invoke(process);
+            }
+            // Java 8: java.lang.UNIXProcess
+            Field field = process.getClass().getDeclaredField("pid");
+            field.setAccessible(true);
+            return field.getInt(process);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    long getPid() {
+        return pid;
+    }
+
+    long getWallNanos() {
+        return (endNanos < 0 ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    /**
+     * @return the user CPU time, or <code>-1</code> if unknown
+     */
+    long getUserCpuNanos() {
+        return userCpuNanos;
+    }
+
+    /**
+     * @return the system CPU time, or <code>-1</code> if unknown
+     */
+    long getSystemCpuNanos() {
+        return systemCpuNanos;
+    }
+
+    /**
+     * @return the user and system CPU time, or <code>-1</code> if unknown
+     */
+    long getTotalCpuNanos() {
+        return totalCpuNanos;
+    }
+
+    /**
+     * @return the peak resident set size of the processes together, or <code>-1</code> if unknown
+     */
+    long getPeakRssBytes() {
+        return peakRssBytes;
+    }
+
+    /**
+     * @return for example <code>wall 812 ms, cpu 1530 ms (user 1400 ms, system 130 ms), peak RSS 85 MB</code>
+     */
+    String summary() {
+        StringBuilder sb = new StringBuilder("wall ").append(millis(getWallNanos()));
+        if (totalCpuNanos >= 0) {
+            sb.append(", cpu ").append(millis(totalCpuNanos));
+            if (userCpuNanos >= 0) {
+                sb.append(" (user ")
+                        .append(millis(userCpuNanos))
+                        .append(", system ")
+                        .append(millis(systemCpuNanos))
+                        .append(')');
+            }
+        }
+        if (peakRssBytes >= 0) {
+            sb.append(", peak RSS ").append(peakRssBytes / (1024 * 1024)).append(" MB");
+        }
+        return sb.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%d ms", TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Collects the timings of all jmod goal executions of a build and keeps a report of them, slowest first, in the
+ * build directory of the top level project. The plugin class realm is shared by all modules of a reactor, so the
+ * executions of all modules end up in the same report.
+ */
+final class ReactorTimings {
+
+    private static final Map<MavenSession, List<Execution>> EXECUTIONS = new WeakHashMap<>();
+
+    private ReactorTimings() {}
+
+    /**
+     * Add an execution and rewrite the reactor report.
+     */
+    static void add(MavenSession session, File reportFile, String project, String goal, boolean success, long nanos)
+            throws IOException {
+        synchronized (EXECUTIONS) {
+            List<Execution> executions = EXECUTIONS.get(session);
+            if (executions == null) {
+                executions = new ArrayList<>();
+                EXECUTIONS.put(session, executions);
+            }
+            executions.add(new Execution(project, goal, success, nanos));
+            Collections.sort(executions, new Comparator<Execution>() {
+                @Override
+                public int compare(Execution o1, Execution o2) {
+                    return Long.compare(o2.nanos, o1.nanos);
+                }
+            });
+
+            long total = 0;
+            for (Execution execution : executions) {
+                total += execution.nanos;
+            }
+            try (JsonWriter json = JsonWriter.create(reportFile)) {
+                json.beginObject();
+                json.property("totalMillis", PhaseTimer.toMillis(total));
+                json.name("executions").beginArray();
+                for (Execution execution : executions) {
+                    json.beginObject()
+                            .property("project", execution.project)
+                            .property("goal", execution.goal)
+                            .property("success", execution.success)
+                            .property("totalMillis", PhaseTimer.toMillis(execution.nanos))
+                            .endObject();
+                }
+                json.endArray();
+                json.endObject();
+            }
+        }
+    }
+
+    private static final class Execution {
+        private final String project;
+
+        private final String goal;
+
+        private final boolean success;
+
+        private final long nanos;
+
+        Execution(String project, String goal, boolean success, long nanos) {
+            this.project = project;
+            this.goal = goal;
+            this.success = success;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jmod;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates the content of large projects for the scale tests and the benchmarks: modules with many classes, many
+ * modular and automatic dependencies, large native libraries and deep configuration trees. Everything is generated
+ * with fixed seeds and timestamps, so the content only depends on the arguments and no repository is needed.
+ */
+public final class ScaleProjectGenerator {
+
+    /**
+     * The group id of the generated dependencies.
+     */
+    public static final String GROUP_ID = "org.apache.maven.plugins.jmod.scale";
+
+    private static final String VERSION = "1.0";
+
+    private static final long SEED = 20171113L;
+
+    /**
+     * The time of the generated files: 2020-01-01T00:00:00Z.
+     */
+    private static final long TIME = 1577836800000L;
+
+    private static final int CLASSES_PER_PACKAGE = 100;
+
+    private static final int METHODS_PER_CLASS = 8;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private ScaleProjectGenerator() {}
+
+    /**
+     * Write the compiled classes of a module, which is what the compiler plugin leaves in
+     * <code>target/classes</code>.
+     *
+     * @param directory the output directory of the classes
+     * @param module the name of the module, which is also the name of its root package
+     * @param requires the modules which are required besides <code>java.base</code>
+     * @param classes the number of classes, in packages of {@value #CLASSES_PER_PACKAGE} classes
+     * @throws IOException in case the classes can not be written
+     */
+    public static void createClasses(File directory, String module, List<String> requires, int classes)
+            throws IOException {
+        Random random = new Random(SEED);
+        Set<String> packages = new LinkedHashSet<>();
+        for (int i = 0; i < classes; i++) {
+            String type = String.format(
+                    Locale.ROOT, "%s/p%04d/C%06d", module.replace('.', '/'), i / CLASSES_PER_PACKAGE, i);
+            packages.add(pkg(type));
+            write(new File(directory, type + ".class"), type(type, random));
+        }
+        write(
+                new File(directory, "module-info.class"),
+                moduleInfo(module, requires, packages.toArray(new String[0])));
+    }
+
+    /**
+     * @param jar the jar to create
+     * @param module the name of the module
+     * @param seed the seed of the content
+     * @throws IOException in case the jar can not be written
+     */
+    public static void createModularJar(File jar, String module, long seed) throws IOException {
+        String type = module.replace('.', '/') + "/Api";
+        try (JarOutputStream out = new JarOutputStream(newOutputStream(jar))) {
+            write(out, "module-info.class", moduleInfo(module, Collections.<String>emptyList(), pkg(type)));
+            write(out, type + ".class", type(type, new Random(SEED + seed)));
+        }
+    }
+
+    /**
+     * @param jar the jar to create
+     * @param module the name of the module, which is given via <code>Automatic-Module-Name</code>
+     * @param seed the seed of the content
+     * @throws IOException in case the jar can not be written
+     */
+    public static void createAutomaticJar(File jar, String module, long seed) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Automatic-Module-Name", module);
+        String type = module.replace('.', '/') + "/Api";
+        try (JarOutputStream out = new JarOutputStream(newOutputStream(jar))) {
+            JarEntry entry = new JarEntry("META-INF/MANIFEST.MF");
+            entry.setTime(TIME);
+            out.putNextEntry(entry);
+            manifest.write(out);
+            out.closeEntry();
+            write(out, type + ".class", type(type, new Random(SEED + seed)));
+        }
+    }
+
+    /**
+     * Create a native library with incompressible content.
+     *
+     * @param file the library to create
+     * @param size the size in bytes
+     * @throws IOException in case the library can not be written
+     */
+    public static void createNativeLibrary(File file, long size) throws IOException {
+        Random random = new Random(SEED);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (OutputStream out = newOutputStream(file)) {
+            for (long remaining = size; remaining > 0; remaining -= buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int) Math.min(buffer.length, remaining));
+            }
+        }
+        file.setLastModified(TIME);
+    }
+
+    /**
+     * Create a configuration tree of nested directories with some files on each level.
+     *
+     * @param directory the root of the tree
+     * @param depth the number of nested directories
+     * @param filesPerDirectory the number of files in each directory
+     * @return the number of files which have been created
+     * @throws IOException in case the files can not be written
+     */
+    public static int createConfigTree(File directory, int depth, int filesPerDirectory) throws IOException {
+        int files = 0;
+        File level = directory;
+        for (int d = 0; d < depth; d++) {
+            level = new File(level, String.format(Locale.ROOT, "level%03d", d));
+            for (int i = 0; i < filesPerDirectory; i++) {
+                String name = String.format(Locale.ROOT, "config%04d.properties", i);
+                String content = "level = " + d + "\nindex = " + i + '\n';
+                write(new File(level, name), content.getBytes(StandardCharsets.UTF_8));
+                files++;
+            }
+        }
+        return files;
+    }
+
+    public static String modularDependency(int index) {
+        return String.format(Locale.ROOT, "scale.modular%04d", index);
+    }
+
+    public static String automaticDependency(int index) {
+        return String.format(Locale.ROOT, "scale.automatic%04d", index);
+    }
+
+    /**
+     * Install dependencies into a local repository, so a project can depend on them without any remote repository.
+     * The artifact id of a dependency is its module name with <code>-</code> instead of <code>.</code>.
+     *
+     * @param localRepository the local repository
+     * @param modular the number of modular dependencies, see {@link #modularDependency(int)}
+     * @param automatic the number of automatic modules, see {@link #automaticDependency(int)}
+     * @return the module names of the dependencies
+     * @throws IOException in case the dependencies can not be written
+     */
+    public static List<String> installDependencies(File localRepository, int modular, int automatic)
+            throws IOException {
+        List<String> modules = new ArrayList<>(modular + automatic);
+        for (int i = 0; i < modular; i++) {
+            String module = modularDependency(i);
+            createModularJar(install(localRepository, module), module, i);
+            modules.add(module);
+        }
+        for (int i = 0; i < automatic; i++) {
+            String module = automaticDependency(i);
+            createAutomaticJar(install(localRepository, module), module, modular + i);
+            modules.add(module);
+        }
+        return modules;
+    }
+
+    /**
+     * @param modules the module names of installed dependencies
+     * @return the <code>dependency</code> elements of the dependencies
+     */
+    public static String dependencies(List<String> modules) {
+        StringBuilder sb = new StringBuilder();
+        for (String module : modules) {
+            sb.append("<dependency><groupId>")
+                    .append(GROUP_ID)
+                    .append("</groupId><artifactId>")
+                    .append(artifactId(module))
+                    .append("</artifactId><version>")
+                    .append(VERSION)
+                    .append("</version></dependency>\n");
+        }
+        return sb.toString();
+    }
+
+    private static String artifactId(String module) {
+        return module.replace('.', '-');
+    }
+
+    /**
+     * Write the POM of a dependency.
+     *
+     * @return the jar of the dependency, which is still to be written
+     */
+    private static File install(File localRepository, String module) throws IOException {
+        String artifactId = artifactId(module);
+        File directory = new File(localRepository, GROUP_ID.replace('.', '/') + '/' + artifactId + '/' + VERSION);
+        try (Writer out = new OutputStreamWriter(
+                newOutputStream(new File(directory, artifactId + '-' + VERSION + ".pom")), StandardCharsets.UTF_8)) {
+            out.write("<project><modelVersion>4.0.0</modelVersion><groupId>" + GROUP_ID + "</groupId><artifactId>"
+                    + artifactId + "</artifactId><version>" + VERSION + "</version></project>\n");
+        }
+        return new File(directory, artifactId + '-' + VERSION + ".jar");
+    }
+
+    private static String pkg(String type) {
+        return type.substring(0, type.lastIndexOf('/'));
+    }
+
+    private static byte[] moduleInfo(String module, List<String> requires, String... exports) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V9, Opcodes.ACC_MODULE, "module-info", null, null, null);
+        ModuleVisitor mv = cw.visitModule(module, 0, null);
+        mv.visitRequire("java.base", Opcodes.ACC_MANDATED, null);
+        for (String required : requires) {
+            mv.visitRequire(required, 0, null);
+        }
+        for (String export : exports) {
+            mv.visitPackage(export);
+            mv.visitExport(export, 0);
+        }
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * A class with some methods which return random constants, so the classes do not compress too well.
+     */
+    private static byte[] type(String name, Random random) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+        for (int i = 0; i < METHODS_PER_CLASS; i++) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "m" + i, "()Ljava/lang/String;", null, null);
+            mv.visitCode();
+            mv.visitLdcInsn(Long.toString(random.nextLong(), 36) + Long.toString(random.nextLong(), 36));
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void write(JarOutputStream out, String name, byte[] content) throws IOException {
+        JarEntry entry = new JarEntry(name);
+        entry.setTime(TIME);
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static void write(File file, byte[] content) throws IOException {
+        try (OutputStream out = newOutputStream(file)) {
+            out.write(content);
+        }
+        file.setLastModified(TIME);
+    }
+
+    private static OutputStream newOutputStream(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (!parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Unable to create directory " + parent.getAbsolutePath());
+        }
+        return new FileOutputStream(file);
+    }
+}